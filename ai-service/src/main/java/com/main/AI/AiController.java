@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.AI.store.SearchFilter;
 
 import java.io.FileWriter;
 import java.util.List;
@@ -15,8 +16,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -25,6 +29,8 @@ public class AiController {
     private static final String GROQ_API_KEY = Config.get("GROQ_API_KEY");
     private static final String MODEL_NAME = Config.get("MODEL_NAME");
     private static final String UPLOAD_DIR = "./src/main/uploads/";
+    private static final int BATCH_MAX_FILES = Config.getInt("BATCH_MAX_FILES", 200);
+    private static final long BATCH_MAX_BYTES = Config.getLong("BATCH_MAX_BYTES", 100L * 1024 * 1024);
     public QueryManager qm;
 
     public AiController() {
@@ -51,43 +57,77 @@ public class AiController {
                 return ResponseEntity.badRequest().body("Invalid file name");
             }
 
-            String fileName = originalFilename.toLowerCase();
-            boolean success = qm.parseDocument(file.getBytes(), originalFilename);
-            if (!success) {
+            // Parsing, embedding and saving run on the ingestion workers; poll /api/jobs/{jobId}
+            IngestionJob job = qm.submitDocument(id, file.getBytes(), originalFilename, file.getContentType());
+            if (job == null) {
                 return ResponseEntity.badRequest()
                         .body("Unsupported file type. Only .txt, .md, or .pdf are allowed.");
             }
 
-            qm.getDb().saveToFile("./src/main/resources/dbs/" + id + ".db");
-
-            return ResponseEntity.ok()
+            return ResponseEntity.accepted()
                     .body(new ChunkResponse(
                             originalFilename,
-                            file.getSize()
+                            file.getSize(),
+                            job.getId()
                     ));
 
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many uploads in progress, try again later");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error processing file: " + e.getMessage());
         }
     }
 
-    @PostMapping("/query")
-    public ResponseEntity<String> chat(@RequestBody ChatRequest request) {
-        String id = request.getId();
-        String msg = request.getQuestion();
+    // Several files as repeated "files" parts, .zip archives among them unpacked; one job for all
+    @PostMapping("/batchUpload")
+    public ResponseEntity<?> uploadBatch(@RequestParam("files") List<MultipartFile> files,
+                                         @RequestParam("id") String id) {
+        try {
+            if (id == null || id.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("ID is required");
+            }
 
-        String filepath = "./src/main/resources/dbs/" + id + ".db";
-        Path path = Paths.get(filepath);
-        if (!Files.exists(path)) {
+            BatchUpload batch = new BatchUpload(BATCH_MAX_FILES, BATCH_MAX_BYTES);
+            for (MultipartFile file : files) {
+                if (!file.isEmpty() && file.getOriginalFilename() != null) {
+                    batch.add(file.getOriginalFilename(), file.getContentType(), file.getBytes());
+                }
+            }
+            if (batch.files().isEmpty()) {
+                return ResponseEntity.badRequest().body("No files to upload");
+            }
 
-            qm.getDb().saveToFile(filepath);
+            String batchName = files.size() == 1 ? files.get(0).getOriginalFilename()
+                    : "batch of " + batch.files().size() + " files";
+            IngestionJob job = qm.submitBatch(id, batchName, batch.files());
+            if (job == null) {
+                return ResponseEntity.badRequest()
+                        .body("Unsupported file types. Only .txt, .md, or .pdf are allowed.");
+            }
+
+            return ResponseEntity.accepted()
+                    .body(new BatchResponse(batchName, job.getId(), job.getFiles(),
+                            List.copyOf(job.getFileErrors().keySet())));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many uploads in progress, try again later");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error processing files: " + e.getMessage());
         }
+    }
 
-        qm.getDb().loadFromFile(filepath);
+    @PostMapping("/query")
+    public ResponseEntity<String> chat(@RequestBody ChatRequest request) throws IOException {
+        String id = request.getId();
+        String msg = request.getQuestion();
 
-        String res = qm.answerQuery(msg);
+        String res = qm.answerQuery(id, msg, request.toFilter());
 
         Map<String, Object> response = new HashMap<>();
         response.put("id", id);
@@ -100,14 +140,10 @@ public class AiController {
     @DeleteMapping("/deleteDB")
     public ResponseEntity<Map<String, Object>> deleteDB(@RequestBody ChatRequest request) {
 
-       String filepath = "./src/main/resources/dbs/" + request.getId() + ".db";
-
-       File file = new File(filepath);
-
         Map<String, Object> response = new HashMap<>();
         response.put("id", request.getId());
 
-        if (file.delete()) {
+        if (qm.deleteTenant(request.getId())) {
 
             response.put("status", "deleted");
 
@@ -116,17 +152,29 @@ public class AiController {
             response.put("status", "Failed");
 
         }
-        qm.getDb().clear();
 
 
         return ResponseEntity.ok(response);
     }
 
+    @DeleteMapping("/deleteDocument")
+    public ResponseEntity<Map<String, Object>> deleteDocument(@RequestBody DocumentRequest request) throws IOException {
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", request.getId());
+        response.put("docId", request.getDocId());
+
+        int removed = qm.deleteDocument(request.getId(), request.getDocId());
+        response.put("chunks", removed);
+        response.put("status", removed > 0 ? "deleted" : "Not found");
+
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/documents")
-    public ResponseEntity<String> getDocuments(@RequestBody ChatRequest request) throws JsonProcessingException {
-        
-        qm.getDb().loadFromFile("./src/main/resources/dbs/" + request.getId() + ".db");
-        List<String> docs = qm.getDb().retrieveDocuments(); 
+    public ResponseEntity<String> getDocuments(@RequestBody ChatRequest request) throws IOException {
+
+        List<String> docs = qm.retrieveDocuments(request.getId());
         Map<String, Object> response = new HashMap<>();
         response.put("id", request.getId());
 
@@ -137,28 +185,97 @@ public class AiController {
 
     }
 
+    // Status of an upload; with ?id= only that tenant's jobs are visible
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId,
+                                                      @RequestParam(value = "id", required = false) String id) {
+        IngestionJob job = qm.getJob(jobId);
+        if (job == null || (id != null && !id.equals(job.getTenantId()))) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toMap());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(qm.getStats());
+    }
+
     // ------------ DTO ------------
     public static class ChatRequest {
         private String id;
         private String question;
+        // Optional scope: only these documents, uploaded within [uploadedFrom, uploadedTo] (epoch ms)
+        private List<String> docIds;
+        private Long uploadedFrom;
+        private Long uploadedTo;
 
         public String getId() { return id; }
         public void setId(String id) { this.id = id; }
 
         public String getQuestion() { return question; }
         public void setQuestion(String question) { this.question = question; }
+
+        public List<String> getDocIds() { return docIds; }
+        public void setDocIds(List<String> docIds) { this.docIds = docIds; }
+
+        public Long getUploadedFrom() { return uploadedFrom; }
+        public void setUploadedFrom(Long uploadedFrom) { this.uploadedFrom = uploadedFrom; }
+
+        public Long getUploadedTo() { return uploadedTo; }
+        public void setUploadedTo(Long uploadedTo) { this.uploadedTo = uploadedTo; }
+
+        SearchFilter toFilter() {
+            Set<String> ids = docIds == null || docIds.isEmpty() ? null : new HashSet<>(docIds);
+            return new SearchFilter(ids, uploadedFrom, uploadedTo);
+        }
+    }
+
+    public static class DocumentRequest {
+        private String id;
+        private String docId;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public String getDocId() { return docId; }
+        public void setDocId(String docId) { this.docId = docId; }
     }
 
     static class ChunkResponse {
         private String filename;
         private long fileSize;
+        private String jobId;
 
-        public ChunkResponse(String filename, long fileSize) {
+        public ChunkResponse(String filename, long fileSize, String jobId) {
             this.filename = filename;
             this.fileSize = fileSize;
+            this.jobId = jobId;
         }
 
         public String getFilename() { return filename; }
         public long getFileSize() { return fileSize; }
+        public String getJobId() { return jobId; }
+        public String getStatus() { return "queued"; }
+    }
+
+    static class BatchResponse {
+        private String filename;
+        private String jobId;
+        private List<String> files;
+        private List<String> unsupported;
+
+        public BatchResponse(String filename, String jobId, List<String> files, List<String> unsupported) {
+            this.filename = filename;
+            this.jobId = jobId;
+            this.files = files;
+            this.unsupported = unsupported;
+        }
+
+        public String getFilename() { return filename; }
+        public String getJobId() { return jobId; }
+        public List<String> getFiles() { return files; }
+        public List<String> getUnsupported() { return unsupported; }
+        public String getStatus() { return "queued"; }
     }
 }
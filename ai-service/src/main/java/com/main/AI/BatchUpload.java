@@ -0,0 +1,128 @@
+package com.main.AI;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The files of one batch upload, given as several multipart parts, as .zip archives, or both.
+ * Archives are unpacked in memory; folders and hidden or macOS metadata entries are skipped,
+ * and each file is named by its path inside the archive, such as {@code week1/notes.md}; other
+ * parts are named by their base name, as if uploaded on their own. Names become document ids,
+ * so a name already in the batch gets a numbered suffix, such as {@code notes (2).md}.
+ *
+ * At most {@code maxFiles} files and {@code maxBytes} of unpacked content are accepted, so a
+ * small archive cannot expand into more than the service is willing to hold.
+ */
+public class BatchUpload {
+
+    public record File(String name, String contentType, byte[] bytes) {
+    }
+
+    private final int maxFiles;
+    private final long maxBytes;
+    private final List<File> files = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private long bytes;
+
+    BatchUpload(int maxFiles, long maxBytes) {
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Adds an uploaded part, unpacking it if it is a .zip archive. */
+    void add(String name, String contentType, byte[] content) throws IOException {
+        if (isArchive(name, contentType)) {
+            unpack(content);
+        } else {
+            String path = path(name);
+            addFile(path.substring(path.lastIndexOf('/') + 1), contentType, content);
+        }
+    }
+
+    List<File> files() {
+        return files;
+    }
+
+    private void unpack(byte[] archive) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            byte[] buffer = new byte[8192];
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                String name = path(entry.getName());
+                if (entry.isDirectory() || name.startsWith("__MACOSX/")
+                        || name.isEmpty() || name.startsWith(".") || name.contains("/.")) {
+                    continue;
+                }
+                // Counted while reading: the sizes an entry declares are not to be trusted
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                for (int read; (read = zip.read(buffer)) > 0; ) {
+                    if (bytes + content.size() + read > maxBytes) {
+                        throw new IllegalArgumentException("Batch is larger than " + maxBytes + " bytes unpacked");
+                    }
+                    content.write(buffer, 0, read);
+                }
+                addFile(name, null, content.toByteArray());
+            }
+        }
+    }
+
+    private void addFile(String name, String contentType, byte[] content) {
+        if (files.size() >= maxFiles) {
+            throw new IllegalArgumentException("Batch has more than " + maxFiles + " files");
+        }
+        if (bytes + content.length > maxBytes) {
+            throw new IllegalArgumentException("Batch is larger than " + maxBytes + " bytes unpacked");
+        }
+        bytes += content.length;
+        files.add(new File(unique(name), contentType, content));
+    }
+
+    private String unique(String name) {
+        if (names.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot <= name.lastIndexOf('/')) {
+            dot = name.length();
+        }
+        for (int n = 2; ; n++) {
+            String numbered = name.substring(0, dot) + " (" + n + ")" + name.substring(dot);
+            if (names.add(numbered)) {
+                return numbered;
+            }
+        }
+    }
+
+    private static boolean isArchive(String name, String contentType) {
+        if (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return true;
+        }
+        return contentType != null && (contentType.startsWith("application/zip")
+                || contentType.startsWith("application/x-zip-compressed"));
+    }
+
+    // Forward slashes only, without empty, "." or ".." parts
+    private static String path(String path) {
+        if (path == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (String part : path.replace('\\', '/').split("/")) {
+            if (part.isEmpty() || part.equals(".") || part.equals("..")) {
+                continue;
+            }
+            if (!normalized.isEmpty()) {
+                normalized.append('/');
+            }
+            normalized.append(part);
+        }
+        return normalized.toString();
+    }
+}
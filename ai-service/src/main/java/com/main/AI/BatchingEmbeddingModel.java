@@ -0,0 +1,98 @@
+package com.main.AI;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits large {@code embedAll} calls into batches of at most {@code batchSize} segments,
+ * so ingesting a big document is a handful of model calls instead of one per chunk, with
+ * bounded memory per call. With {@code parallelBatches > 1} batches run concurrently on a
+ * shared pool; otherwise they run one after another on the calling thread.
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate, int batchSize, int parallelBatches) {
+        this.delegate = delegate;
+        this.batchSize = Math.max(batchSize, 1);
+        this.executor = parallelBatches > 1 ? Executors.newFixedThreadPool(parallelBatches, daemonThreads()) : null;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        if (segments.size() <= batchSize) {
+            return delegate.embedAll(segments);
+        }
+
+        List<Response<List<Embedding>>> responses = new ArrayList<>();
+        if (executor == null) {
+            for (int from = 0; from < segments.size(); from += batchSize) {
+                responses.add(delegate.embedAll(batch(segments, from)));
+            }
+        } else {
+            List<Future<Response<List<Embedding>>>> futures = new ArrayList<>();
+            for (int from = 0; from < segments.size(); from += batchSize) {
+                List<TextSegment> batch = batch(segments, from);
+                futures.add(executor.submit(() -> delegate.embedAll(batch)));
+            }
+            for (Future<Response<List<Embedding>>> future : futures) {
+                responses.add(join(future));
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(segments.size());
+        TokenUsage usage = null;
+        for (Response<List<Embedding>> response : responses) {
+            embeddings.addAll(response.content());
+            usage = TokenUsage.sum(usage, response.tokenUsage());
+        }
+        return Response.from(embeddings, usage);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    private List<TextSegment> batch(List<TextSegment> segments, int from) {
+        return segments.subList(from, Math.min(from + batchSize, segments.size()));
+    }
+
+    private static Response<List<Embedding>> join(Future<Response<List<Embedding>>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while embedding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Embedding batch failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "embedding-batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
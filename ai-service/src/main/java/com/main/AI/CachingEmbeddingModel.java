@@ -0,0 +1,218 @@
+package com.main.AI;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers embeddings by a hash of their normalized text, so re-uploaded chunks and
+ * repeated questions skip the model. Normalizing means Unicode NFC, trimmed, with runs of
+ * whitespace collapsed to one space, none of which changes what the tokenizer sees.
+ *
+ * The cache is an LRU of at most {@code maxEntries} vectors. Given a path, new entries are
+ * appended to that file after each call and read back on startup, when the file is also
+ * rewritten down to what fits in the cache.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final int MAGIC = 0x53424543; // "SBEC"
+    private static final int VERSION = 1;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private record Key(long high, long low) {
+    }
+
+    private final EmbeddingModel delegate;
+    private final int maxEntries;
+    private final Path path;
+    private final LinkedHashMap<Key, float[]> entries;
+    private DataOutputStream out;
+    private long hits;
+    private long misses;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, int maxEntries, Path path) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.path = path;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                return size() > CachingEmbeddingModel.this.maxEntries;
+            }
+        };
+        if (path != null) {
+            try {
+                load();
+            } catch (IOException e) {
+                // A broken cache file only costs re-embedding
+                System.out.println("Ignoring embedding cache " + path + ": " + e.getMessage());
+                entries.clear();
+            }
+        }
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        Key[] keys = new Key[segments.size()];
+        Embedding[] embeddings = new Embedding[segments.size()];
+        List<TextSegment> missing = new ArrayList<>();
+        List<Integer> missingAt = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < segments.size(); i++) {
+                keys[i] = keyOf(segments.get(i).text());
+                float[] cached = entries.get(keys[i]);
+                if (cached != null) {
+                    embeddings[i] = Embedding.from(cached);
+                    hits++;
+                } else {
+                    missing.add(segments.get(i));
+                    missingAt.add(i);
+                    misses++;
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return Response.from(List.of(embeddings));
+        }
+
+        Response<List<Embedding>> response = delegate.embedAll(missing);
+        synchronized (this) {
+            for (int j = 0; j < missing.size(); j++) {
+                int i = missingAt.get(j);
+                embeddings[i] = response.content().get(j);
+                float[] vector = embeddings[i].vector();
+                if (entries.put(keys[i], vector) == null) {
+                    append(keys[i], vector);
+                }
+            }
+            flush();
+        }
+        return Response.from(List.of(embeddings), response.tokenUsage());
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("persisted", path != null);
+        return stats;
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").strip();
+    }
+
+    private static Key keyOf(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalize(text).getBytes(StandardCharsets.UTF_8));
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (digest[i] & 0xFF);
+                low = (low << 8) | (digest[8 + i] & 0xFF);
+            }
+            return new Key(high, low);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Reads the file, oldest entries first, then rewrites it with what the cache kept
+    private void load() throws IOException {
+        if (Files.exists(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("not an embedding cache file");
+                }
+                while (true) {
+                    Key key;
+                    float[] vector;
+                    try {
+                        key = new Key(in.readLong(), in.readLong());
+                        vector = new float[in.readInt()];
+                        for (int i = 0; i < vector.length; i++) {
+                            vector[i] = in.readFloat();
+                        }
+                    } catch (EOFException e) {
+                        break; // torn last record
+                    }
+                    entries.put(key, vector);
+                }
+            }
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream rewrite = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            rewrite.writeInt(MAGIC);
+            rewrite.writeInt(VERSION);
+            for (Map.Entry<Key, float[]> entry : entries.entrySet()) {
+                writeEntry(rewrite, entry.getKey(), entry.getValue());
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.APPEND)));
+    }
+
+    private void append(Key key, float[] vector) {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeEntry(out, key, vector);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to embedding cache " + path, e);
+        }
+    }
+
+    private void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush embedding cache " + path, e);
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, Key key, float[] vector) throws IOException {
+        out.writeLong(key.high());
+        out.writeLong(key.low());
+        out.writeInt(vector.length);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+}
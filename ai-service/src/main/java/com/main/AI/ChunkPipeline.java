@@ -0,0 +1,103 @@
+package com.main.AI;
+
+import com.main.AI.store.NearDuplicateIndex;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Chunks and embeds a document while its text is still arriving, a page range at a time.
+ *
+ * A {@link StreamingChunker} hands on each chunk as soon as its paragraph is complete, so the
+ * chunks come out the same as chunking the whole text at once. Segments are embedded every
+ * {@code batchSize} chunks on the calling thread, while the parser keeps extracting ahead of it.
+ * With {@code duplicateDistance >= 0}, chunks nearly repeating an earlier chunk of the same
+ * document are dropped before they are embedded; repeats of chunks the document already has in
+ * the store are left to {@link VectorDbManager#addEmbedded}. Without an {@code embeddingModel} it only chunks, for
+ * callers that embed the segments of several documents together.
+ */
+class ChunkPipeline implements Consumer<String> {
+
+    private final String docId;
+    private final EmbeddingModel embeddingModel;
+    private final int batchSize;
+    private final long uploadedAt = System.currentTimeMillis();
+    private final StreamingChunker chunker;
+    private final ChunkingStats stats;
+    private final NearDuplicateIndex duplicates;
+    private int suppressed;
+    private final List<TextSegment> segments = new ArrayList<>();
+    private final List<Embedding> embeddings = new ArrayList<>();
+
+    ChunkPipeline(String docId, EmbeddingModel embeddingModel, int batchSize) {
+        this(docId, embeddingModel, batchSize, StreamingChunker.characters(RagService.MAX_CHUNK_CHARS), null, -1);
+    }
+
+    /** {@code stats}, if not null, is told about every chunk and the finished document. */
+    ChunkPipeline(String docId, EmbeddingModel embeddingModel, int batchSize,
+                  StreamingChunker.Policy policy, ChunkingStats stats, int duplicateDistance) {
+        this.docId = docId;
+        this.embeddingModel = embeddingModel;
+        this.batchSize = Math.max(1, batchSize);
+        this.chunker = new StreamingChunker(policy, this::addChunk);
+        this.stats = stats;
+        this.duplicates = duplicateDistance >= 0 ? new NearDuplicateIndex(duplicateDistance) : null;
+    }
+
+    @Override
+    public void accept(String piece) {
+        chunker.append(piece);
+        embed(false);
+    }
+
+    /** Chunks and embeds whatever is left once the last piece has arrived. */
+    void finish() {
+        chunker.finish();
+        embed(true);
+        if (stats != null) {
+            stats.document();
+        }
+        NearDuplicateIndex.record(0, suppressed);
+    }
+
+    int chunkCount() {
+        return segments.size();
+    }
+
+    List<TextSegment> segments() {
+        return segments;
+    }
+
+    List<Embedding> embeddings() {
+        return embeddings;
+    }
+
+    private void addChunk(String chunk) {
+        if (duplicates != null) {
+            if (duplicates.findDuplicate(chunk) >= 0) {
+                suppressed++;
+                return;
+            }
+            duplicates.added(segments.size(), chunk);
+        }
+        segments.add(RagService.toSegment(docId, chunk, uploadedAt));
+        if (stats != null) {
+            stats.chunk(chunk);
+        }
+    }
+
+    private void embed(boolean all) {
+        if (embeddingModel == null) {
+            return;
+        }
+        while (segments.size() - embeddings.size() >= batchSize
+                || (all && segments.size() > embeddings.size())) {
+            int end = Math.min(embeddings.size() + batchSize, segments.size());
+            embeddings.addAll(embeddingModel.embedAll(segments.subList(embeddings.size(), end)).content());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.main.AI;
+
+import dev.langchain4j.model.embedding.TokenCountEstimator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chunks per document and embedding-model tokens per chunk over everything ingested, for
+ * tuning chunk sizes: chunks over the model window lose their tail when embedded, and many
+ * small ones cost index size without helping recall.
+ */
+class ChunkingStats {
+
+    private final TokenCountEstimator tokenizer;
+    private final int windowTokens;
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong maxTokens = new AtomicLong();
+    private final AtomicLong overWindow = new AtomicLong();
+
+    ChunkingStats(TokenCountEstimator tokenizer, int windowTokens) {
+        this.tokenizer = tokenizer;
+        this.windowTokens = windowTokens;
+    }
+
+    void chunk(String text) {
+        int count = tokenizer.estimateTokenCount(text);
+        chunks.incrementAndGet();
+        tokens.addAndGet(count);
+        maxTokens.accumulateAndGet(count, Math::max);
+        if (count > windowTokens) {
+            overWindow.incrementAndGet();
+        }
+    }
+
+    void document() {
+        documents.incrementAndGet();
+    }
+
+    Map<String, Object> stats() {
+        long documentCount = documents.get();
+        long chunkCount = chunks.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", documentCount);
+        stats.put("chunks", chunkCount);
+        stats.put("chunksPerDocument", documentCount == 0 ? 0.0 : (double) chunkCount / documentCount);
+        stats.put("tokensPerChunk", chunkCount == 0 ? 0.0 : (double) tokens.get() / chunkCount);
+        stats.put("maxTokensPerChunk", maxTokens.get());
+        stats.put("windowTokens", windowTokens);
+        stats.put("chunksOverWindow", overWindow.get());
+        return stats;
+    }
+}
@@ -9,4 +9,28 @@ public class Config {
     public static String get(String key) {
         return dotenv.get(key);
     }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = dotenv.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = dotenv.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        String value = dotenv.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Double.parseDouble(value.trim());
+    }
 }
@@ -0,0 +1,121 @@
+package com.main.AI;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One uploaded document on its way through the ingestion pipeline, as reported by
+ * {@code /api/jobs/{id}}. Workers move it through the stages; readers only see snapshots.
+ * A batch upload is one job over several files; files that could not be ingested are listed
+ * with the reason while the rest go ahead.
+ */
+public class IngestionJob {
+
+    public enum Stage {
+        QUEUED(0.0), PARSING(0.1), CHUNKING(0.3), EMBEDDING(0.4), PERSISTING(0.9), DONE(1.0), FAILED(1.0);
+
+        private final double progress;
+
+        Stage(double progress) {
+            this.progress = progress;
+        }
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String tenantId;
+    private final String fileName;
+    private final long fileSize;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile Stage stage = Stage.QUEUED;
+    private volatile int chunks;
+    private volatile String error;
+    private volatile List<String> files;
+    private final Map<String, String> fileErrors = new LinkedHashMap<>();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public IngestionJob(String tenantId, String fileName, long fileSize) {
+        this.tenantId = tenantId;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+    }
+
+    public String getId() { return id; }
+    public String getTenantId() { return tenantId; }
+    public String getFileName() { return fileName; }
+    public Stage getStage() { return stage; }
+    public int getChunks() { return chunks; }
+    public String getError() { return error; }
+    public List<String> getFiles() { return files; }
+
+    public synchronized Map<String, String> getFileErrors() {
+        return new LinkedHashMap<>(fileErrors);
+    }
+
+    void enter(Stage next) {
+        if (startedAt == 0) {
+            startedAt = System.currentTimeMillis();
+        }
+        stage = next;
+        if (next.isFinished()) {
+            finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    // For stages that overlap, such as chunking and embedding while pages are still read:
+    // reports the furthest one reached and never moves the job back
+    synchronized void advance(Stage next) {
+        if (next.ordinal() > stage.ordinal()) {
+            enter(next);
+        }
+    }
+
+    void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    void setFiles(List<String> files) {
+        this.files = List.copyOf(files);
+    }
+
+    synchronized void fileFailed(String file, String reason) {
+        fileErrors.put(file, reason);
+    }
+
+    void fail(Throwable cause) {
+        error = describe(cause);
+        enter(Stage.FAILED);
+    }
+
+    static String describe(Throwable cause) {
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("id", tenantId);
+        map.put("filename", fileName);
+        map.put("fileSize", fileSize);
+        map.put("status", stage.name().toLowerCase());
+        map.put("progress", stage.progress);
+        map.put("chunks", chunks);
+        map.put("createdAt", createdAt);
+        map.put("startedAt", startedAt == 0 ? null : startedAt);
+        map.put("finishedAt", finishedAt == 0 ? null : finishedAt);
+        if (files != null) {
+            map.put("files", files);
+            map.put("fileErrors", getFileErrors());
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
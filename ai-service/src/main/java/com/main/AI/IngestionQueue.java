@@ -0,0 +1,93 @@
+package com.main.AI;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs uploads in the background so the HTTP request returns as soon as the file is queued.
+ * A fixed pool of {@code workers} threads takes jobs from a queue of at most {@code capacity};
+ * when it is full, {@link #submit} throws {@link java.util.concurrent.RejectedExecutionException}
+ * and the caller should retry later. The last {@code retainedJobs} finished jobs stay queryable.
+ */
+public class IngestionQueue {
+
+    @FunctionalInterface
+    public interface Task {
+        void run(IngestionJob job) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int retainedJobs;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> finished = new ArrayDeque<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public IngestionQueue(int workers, int capacity, int retainedJobs) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(capacity, 1)), r -> {
+                    Thread thread = new Thread(r, "ingest-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retainedJobs = retainedJobs;
+    }
+
+    /** Queues {@code task} for {@code job}, which is returned as soon as it is accepted. */
+    public IngestionJob submit(IngestionJob job, Task task) {
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public IngestionJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("capacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void run(IngestionJob job, Task task) {
+        try {
+            task.run(job);
+            job.enter(IngestionJob.Stage.DONE);
+            completed.incrementAndGet();
+        } catch (Throwable e) {
+            System.out.println("Ingestion job " + job.getId() + " failed: " + e.getMessage());
+            job.fail(e);
+            failed.incrementAndGet();
+        } finally {
+            retire(job);
+        }
+    }
+
+    // Forgets the oldest finished jobs beyond the retention limit
+    private synchronized void retire(IngestionJob job) {
+        finished.addLast(job.getId());
+        while (finished.size() > retainedJobs) {
+            jobs.remove(finished.removeFirst());
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class Main {
 
     private static final String GROQ_API_KEY = Config.get("GROQ_API_KEY");
     private static final String MODEL_NAME = Config.get("MODEL_NAME");
+    private static final String LOCAL_TENANT = "local";
 
 
     public static void queryManagerTest() throws IOException {
@@ -35,7 +36,7 @@ public class Main {
 
 
         // Execute query
-        String answer = qm.answerQuery(query);
+        String answer = qm.answerQuery(LOCAL_TENANT, query);
 
         // Print result
         System.out.println("Query: " + query);
@@ -45,14 +46,14 @@ public class Main {
         System.out.println("------------------------------------------");
 
 
-        qm.parseDocument(Files.readAllBytes(Path.of("./LandOfFood.pdf")), "LandOfFood.pdf");
+        qm.parseDocument(LOCAL_TENANT, Files.readAllBytes(Path.of("./LandOfFood.pdf")), "LandOfFood.pdf");
         // Test query
         query = "Where can I find the Moroccan Traditional Food?";
 
 
 
         // Execute query
-        answer = qm.answerQuery(query);
+        answer = qm.answerQuery(LOCAL_TENANT, query);
 
         // Print result
         System.out.println("Query: " + query);
@@ -187,7 +188,7 @@ public class Main {
 
         Path filepath = Path.of(path);
         try {
-            qm.parseDocument(Files.readAllBytes(filepath), fileName);
+            qm.parseDocument(LOCAL_TENANT, Files.readAllBytes(filepath), fileName);
         } catch (UnsupportedOperationException ex) {
             System.out.println(ex.getMessage());
         }
@@ -195,13 +196,13 @@ public class Main {
 
     }
 
-    private static void askAI(Scanner scanner, QueryManager qm) {
+    private static void askAI(Scanner scanner, QueryManager qm) throws IOException {
         System.out.print("Ask the AI a question: ");
         String query = scanner.nextLine();
 
 
         // AI response
-        String answer = qm.answerQuery(query);
+        String answer = qm.answerQuery(LOCAL_TENANT, query);
 
         System.out.println("Query: " + query);
         System.out.println("Answer: " + answer);
@@ -232,7 +233,7 @@ public class Main {
                     askAI(scanner, qm);
                     break;
                 case "3":
-                    qm.getDb().clear();
+                    qm.deleteTenant(LOCAL_TENANT);
                     break;
                 case "4":
                     running = false;
@@ -1,31 +1,125 @@
 package com.main.AI;
 
 import com.main.AI.parser.DocumentParseStrategy;
-import com.main.AI.parser.ParseStrategy;
+import com.main.AI.parser.ParserExecutor;
+import com.main.AI.parser.ParserRegistry;
 import com.main.AI.parser.PdfParseStrategy;
 import com.main.AI.parser.TxtParseStrategy;
+import com.main.AI.store.IndexConfig;
+import com.main.AI.store.NearDuplicateIndex;
+import com.main.AI.store.OffHeapMemory;
+import com.main.AI.store.SearchFilter;
+import com.main.AI.store.VectorMath;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class QueryManager {
     private static QueryManager instance;
+    private static final int EMBED_BATCH_SIZE = Config.getInt("EMBED_BATCH_SIZE", 32);
+    // MiniLM reads at most 256 word-pieces; token chunking fills that window
+    private static final int CHUNK_MAX_TOKENS = Config.getInt("CHUNK_MAX_TOKENS", 256);
+    private static final int CHUNK_OVERLAP_TOKENS = Config.getInt("CHUNK_OVERLAP_TOKENS", 32);
 
-    private RagService rag;
-    private VectorDbManager db;
+    private final TenantStoreRegistry stores;
+    private final CachingEmbeddingModel embeddingCache;
+    private final IndexConfig indexConfig = indexConfig();
+    private final AllMiniLmL6V2EmbeddingModel embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+    private final ChunkingStats chunkingStats = new ChunkingStats(embeddingModel, CHUNK_MAX_TOKENS);
+    private final IngestionQueue ingestion = new IngestionQueue(
+            Config.getInt("INGEST_WORKERS", 2),
+            Config.getInt("INGEST_QUEUE_CAPACITY", 100),
+            1000);
+    private final ParserExecutor parserExecutor = new ParserExecutor(
+            Config.getInt("PARSER_THREADS", Runtime.getRuntime().availableProcessors()),
+            Config.getInt("PARSER_QUEUE_CAPACITY", 64));
+    private final ParserRegistry parsers = parsers();
     private ModelService model;
-    private final ParseStrategy parseStrategy;
 
     // Private constructor to prevent instantiation
     private QueryManager(String api_key, String model_name) {
-        this.db = new VectorDbManager();
         this.model = new ModelService(api_key, model_name);
-        this.rag = new RagService(
-                db,
-                model.getModel()
+        String cachePath = Config.get("EMBED_CACHE_PATH");
+        this.embeddingCache = new CachingEmbeddingModel(
+                new BatchingEmbeddingModel(
+                        embeddingModel,
+                        EMBED_BATCH_SIZE,
+                        Config.getInt("EMBED_PARALLEL_BATCHES", 1)),
+                Config.getInt("EMBED_CACHE_MAX_ENTRIES", 10_000),
+                cachePath == null || cachePath.isBlank() ? null : Path.of(cachePath));
+        this.stores = new TenantStoreRegistry(
+                embeddingCache,
+                indexConfig,
+                model.getModel(),
+                new TenantStoreCache(
+                        Config.getLong("TENANT_CACHE_MAX_BYTES", 256L * 1024 * 1024),
+                        Config.getLong("TENANT_HOT_IDLE_SECONDS", 300) * 1000,
+                        Config.getLong("TENANT_WARM_IDLE_SECONDS", 3600) * 1000),
+                Config.getLong("COMPACTION_MIN_LOG_BYTES", 1024L * 1024),
+                Config.getDouble("COMPACTION_MAX_DEAD_RATIO", 0.3)
         );
-        this.parseStrategy = new ParseStrategy();
+    }
+
+    // VECTOR_INDEX=hnsw or int8 switches every tenant to approximate search; flat (exact) is the default.
+    // COARSE_TOP_DOCUMENTS > 0 adds a first stage that only keeps chunks of the nearest documents.
+    // Flat scans of tenants with SEARCH_PARALLEL_MIN_ROWS rows or more run in SEARCH_SHARD_ROWS shards.
+    // SEARCH_FUSION=vector skips BM25; otherwise keyword hits scoring at least LEXICAL_MIN_SHARE of what
+    // the question could score are fused with the vector results.
+    // Chunks at least DEDUP_SIMILARITY alike (SimHash) to one of the same document are dropped at ingest; 0 keeps them.
+    private static IndexConfig indexConfig() {
+        return baseIndexConfig()
+                .withCoarseDocuments(Config.getInt("COARSE_TOP_DOCUMENTS", 0))
+                .withParallelScan(Config.getInt("SEARCH_SHARD_ROWS", 16384),
+                        Config.getInt("SEARCH_PARALLEL_MIN_ROWS", 65536))
+                .withTextStorage(textStorage())
+                .withDuplicateSimilarity(Config.getDouble("DEDUP_SIMILARITY", 0.95))
+                .withLexicalSearch(lexicalMinShare());
+    }
+
+    private static double lexicalMinShare() {
+        String fusion = Config.get("SEARCH_FUSION");
+        if (fusion != null && fusion.equalsIgnoreCase("vector")) {
+            return -1;
+        }
+        return Config.getDouble("LEXICAL_MIN_SHARE", 0.3);
+    }
+
+    // CHUNK_TEXT=disk keeps chunk text out of memory, compressed also deflates it; heap is the default
+    private static IndexConfig.TextStorage textStorage() {
+        String mode = Config.get("CHUNK_TEXT");
+        if (mode != null && mode.equalsIgnoreCase("compressed")) {
+            return IndexConfig.TextStorage.COMPRESSED;
+        }
+        if (mode != null && mode.equalsIgnoreCase("disk")) {
+            return IndexConfig.TextStorage.DISK;
+        }
+        return IndexConfig.TextStorage.HEAP;
+    }
+
+    private static IndexConfig baseIndexConfig() {
+        String type = Config.get("VECTOR_INDEX");
+        if (type != null && type.equalsIgnoreCase("int8")) {
+            return IndexConfig.int8(Config.getInt("INT8_RERANK_FACTOR", 4));
+        }
+        if (type == null || !type.equalsIgnoreCase("hnsw")) {
+            return IndexConfig.flat();
+        }
+        return new IndexConfig(IndexConfig.Type.HNSW,
+                Config.getInt("HNSW_M", 16),
+                Config.getInt("HNSW_EF_CONSTRUCTION", 200),
+                Config.getInt("HNSW_EF_SEARCH", 64));
     }
 
     // Simple getInstance method
@@ -44,9 +138,14 @@ public class QueryManager {
         return instance;
     }
 
-    public String answerQuery(String query) {
+    public String answerQuery(String tenantId, String query) throws IOException {
+        return answerQuery(tenantId, query, SearchFilter.NONE);
+    }
+
+    public String answerQuery(String tenantId, String query, SearchFilter filter) throws IOException {
         List<String> relevantDocs = new ArrayList<>();
-        List<VectorDbManager.SearchResult> results = rag.search(query, 5);
+        // Only the retrieval needs the tenant's lock; the LLM call runs outside it
+        List<VectorDbManager.SearchResult> results = stores.read(tenantId, store -> store.getRag().search(query, 5, filter));
         for (VectorDbManager.SearchResult res : results) {
             relevantDocs.add(res.getText());
             System.out.println(res.toString());
@@ -323,48 +422,226 @@ return String.format("""
 
     }
 
-    public RagService getRag() {
-        return rag;
-    }
-
     public ModelService getModel() {
         return model;
     }
 
-    public VectorDbManager getDb() {
-        return db;
+    public TenantStoreRegistry getStores() {
+        return stores;
+    }
+
+    public List<String> retrieveDocuments(String tenantId) throws IOException {
+        return stores.read(tenantId, store -> store.getDb().retrieveDocuments());
+    }
+
+    // Returns the number of chunks removed, 0 if the tenant has no such document
+    public int deleteDocument(String tenantId, String docId) throws IOException {
+        return stores.write(tenantId, store -> {
+            int removed = store.getDb().deleteDocument(docId);
+            if (removed > 0) {
+                stores.save(store);
+            }
+            return removed;
+        });
+    }
+
+    public boolean deleteTenant(String tenantId) {
+        return stores.delete(tenantId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("storeCache", stores.stats());
+        stats.put("compaction", stores.compactionStats());
+        stats.put("embeddingCache", embeddingCache.stats());
+        stats.put("searchKernel", VectorMath.kernelName());
+        stats.put("offHeap", OffHeapMemory.stats());
+        stats.put("ingestion", ingestion.stats());
+        stats.put("parsers", parserExecutor.stats());
+        stats.put("chunking", chunkingStats.stats());
+        stats.put("duplicates", NearDuplicateIndex.stats());
+        return stats;
     }
 
 
-    public boolean parseDocument(byte[] fileBytes, String fileName) throws IOException {
-        if (fileName == null || !fileName.contains(".")) {
-            throw new IllegalArgumentException("Invalid file name: no extension found");
+    public boolean parseDocument(String tenantId, byte[] fileBytes, String fileName) throws IOException {
+        DocumentParseStrategy strategy = parsers.find(fileName, null);
+        if (strategy == null) {
+            return false;
         }
+        ingest(new IngestionJob(tenantId, fileName, fileBytes.length), strategy, fileBytes);
+        return true;
+    }
 
-        // Extract extension
-        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+    public IngestionJob submitDocument(String tenantId, byte[] fileBytes, String fileName) {
+        return submitDocument(tenantId, fileBytes, fileName, null);
+    }
 
-        // Choose strategy based on extension
-        DocumentParseStrategy strategy;
-        if (extension.equals("md") || extension.equals("txt")) {
+    /**
+     * Queues the document for ingestion and returns its job right away, or null if neither the
+     * file's extension nor {@code contentType} is supported. Throws RejectedExecutionException
+     * when the queue is full.
+     */
+    public IngestionJob submitDocument(String tenantId, byte[] fileBytes, String fileName, String contentType) {
+        DocumentParseStrategy strategy = parsers.find(fileName, contentType);
+        if (strategy == null) {
+            return null;
+        }
+        return ingestion.submit(new IngestionJob(tenantId, fileName, fileBytes.length),
+                job -> ingest(job, strategy, fileBytes));
+    }
 
-            strategy = new TxtParseStrategy();
+    /**
+     * Queues the files of a batch upload as one job and returns it right away, or null if none
+     * of them is supported. Unsupported files are listed as failed on the job and the rest are
+     * ingested. Throws RejectedExecutionException when the queue is full.
+     */
+    public IngestionJob submitBatch(String tenantId, String batchName, List<BatchUpload.File> files) {
+        List<BatchUpload.File> supported = new ArrayList<>();
+        List<DocumentParseStrategy> strategies = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> unsupported = new ArrayList<>();
+        long size = 0;
+        for (BatchUpload.File file : files) {
+            DocumentParseStrategy strategy = parsers.find(file.name(), file.contentType());
+            if (strategy != null) {
+                supported.add(file);
+                strategies.add(strategy);
+            } else {
+                unsupported.add(file.name());
+            }
+            names.add(file.name());
+            size += file.bytes().length;
+        }
+        if (supported.isEmpty()) {
+            return null;
+        }
+        IngestionJob job = new IngestionJob(tenantId, batchName, size);
+        job.setFiles(names);
+        for (String name : unsupported) {
+            job.fileFailed(name, "Unsupported file type");
+        }
+        return ingestion.submit(job, batch -> ingestBatch(batch, supported, strategies));
+    }
 
-        }else if (extension.equals("pdf")) {
+    public IngestionJob getJob(String jobId) {
+        return ingestion.get(jobId);
+    }
 
-            strategy = new PdfParseStrategy();
+    // parse -> chunk -> embed -> persist; only persisting holds the tenant's write lock,
+    // so queries keep running while a large document is parsed and embedded. Chunking and
+    // embedding keep pace with extraction, so a long PDF's first pages are embedded while
+    // later ones are still being read; the job reports the furthest stage its first chunks reached.
+    private void ingest(IngestionJob job, DocumentParseStrategy strategy, byte[] fileBytes) throws IOException {
+        job.enter(IngestionJob.Stage.PARSING);
+        ChunkPipeline pipeline = pipeline(job.getFileName(), strategy, embeddingCache);
+        strategy.extractText(fileBytes, piece -> {
+            pipeline.accept(piece);
+            job.setChunks(pipeline.chunkCount());
+            if (!pipeline.embeddings().isEmpty()) {
+                job.advance(IngestionJob.Stage.EMBEDDING);
+            } else if (pipeline.chunkCount() > 0) {
+                job.advance(IngestionJob.Stage.CHUNKING);
+            }
+        });
 
-        } else {
+        job.advance(IngestionJob.Stage.EMBEDDING);
+        pipeline.finish();
+        job.setChunks(pipeline.chunkCount());
+        List<TextSegment> segments = pipeline.segments();
+        List<Embedding> embeddings = pipeline.embeddings();
 
-            System.out.println("Format not supported");
-            return false;
+        job.enter(IngestionJob.Stage.PERSISTING);
+        stores.write(job.getTenantId(), store -> {
+            store.getDb().addEmbedded(segments, embeddings);
+            stores.save(store);
+            return null;
+        });
+    }
 
+    // Like ingest, for several files at once: they are parsed and chunked side by side on the
+    // parser pool, their chunks embedded together in full batches, and the tenant's store
+    // saved once for the whole batch. A file that fails to parse is reported and skipped.
+    private void ingestBatch(IngestionJob job, List<BatchUpload.File> files,
+                             List<DocumentParseStrategy> strategies) throws IOException {
+        job.enter(IngestionJob.Stage.PARSING);
+        List<Future<ChunkPipeline>> parsing = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            BatchUpload.File file = files.get(i);
+            DocumentParseStrategy strategy = strategies.get(i);
+            parsing.add(parserExecutor.submit(() -> {
+                ChunkPipeline pipeline = pipeline(file.name(), strategy, null);
+                strategy.extractText(file.bytes(), pipeline);
+                pipeline.finish();
+                return pipeline;
+            }));
+        }
+        List<ChunkPipeline> parsed = new ArrayList<>(files.size());
+        int chunks = 0;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                ChunkPipeline pipeline = parsing.get(i).get();
+                parsed.add(pipeline);
+                chunks += pipeline.chunkCount();
+                job.setChunks(chunks);
+                job.advance(IngestionJob.Stage.CHUNKING);
+            } catch (ExecutionException e) {
+                job.fileFailed(files.get(i).name(), IngestionJob.describe(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + job.getFileName());
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IOException("None of the " + files.size() + " files could be read");
         }
 
-        parseStrategy.setStrategy(strategy);
+        job.enter(IngestionJob.Stage.EMBEDDING);
+        List<TextSegment> segments = new ArrayList<>(chunks);
+        for (ChunkPipeline pipeline : parsed) {
+            segments.addAll(pipeline.segments());
+        }
+        List<Embedding> embeddings = segments.isEmpty() ? List.of() : embeddingCache.embedAll(segments).content();
 
-        // Execute parse
-        parseStrategy.parse(fileBytes, fileName, rag);
-        return true;
+        job.enter(IngestionJob.Stage.PERSISTING);
+        stores.write(job.getTenantId(), store -> {
+            int start = 0;
+            for (ChunkPipeline pipeline : parsed) {
+                int end = start + pipeline.chunkCount();
+                store.getDb().addEmbedded(segments.subList(start, end), embeddings.subList(start, end));
+                start = end;
+            }
+            stores.save(store);
+            return null;
+        });
+    }
+
+    // Chunks a document with its format's policy; with a null model the caller embeds the chunks
+    private ChunkPipeline pipeline(String docId, DocumentParseStrategy strategy, CachingEmbeddingModel model) {
+        StreamingChunker.Policy policy = strategy.chunking() == DocumentParseStrategy.Chunking.TOKENS
+                ? new TokenChunkPolicy(embeddingModel, CHUNK_MAX_TOKENS, CHUNK_OVERLAP_TOKENS)
+                : StreamingChunker.characters(RagService.MAX_CHUNK_CHARS);
+        return new ChunkPipeline(docId, model, EMBED_BATCH_SIZE, policy, chunkingStats, indexConfig.duplicateDistance());
+    }
+
+    // One stateless strategy per format, shared by all uploads; PDF page ranges run on the parser pool
+    private ParserRegistry parsers() {
+        return ParserRegistry.empty()
+                .with(new TxtParseStrategy(chunking("CHUNKING_TXT")),
+                        Set.of("txt", "md"), Set.of("text/plain", "text/markdown"))
+                .with(new PdfParseStrategy(Config.getInt("PDF_PAGES_PER_TASK", PdfParseStrategy.DEFAULT_PAGES_PER_TASK),
+                                chunking("CHUNKING_PDF"), parserExecutor),
+                        Set.of("pdf"), Set.of("application/pdf"));
+    }
+
+    // CHUNKING_PDF / CHUNKING_TXT = tokens or chars pick the chunker per format, falling back to CHUNKING
+    private static DocumentParseStrategy.Chunking chunking(String key) {
+        String mode = Config.get(key);
+        if (mode == null || mode.isBlank()) {
+            mode = Config.get("CHUNKING");
+        }
+        return mode != null && mode.equalsIgnoreCase("tokens")
+                ? DocumentParseStrategy.Chunking.TOKENS
+                : DocumentParseStrategy.Chunking.CHARACTERS;
     }
 }
@@ -8,12 +8,22 @@ import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
+import com.main.AI.store.DocumentCatalog;
+import com.main.AI.store.SearchFilter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RagService {
 
+    // Reciprocal-rank fusion constant; 60 is the value from Cormack et al. and rarely needs tuning
+    private static final int RRF_K = 60;
+    // Each retriever contributes this many times topK candidates to the fusion
+    private static final int CANDIDATES_PER_RESULT = 4;
+
     private final VectorDbManager vectorDb;
     private final ChatLanguageModel chatModel;
     private final String systemPrompt;
@@ -25,92 +35,51 @@ public class RagService {
         this.systemPrompt = "You are a helpful assistant.";
     }
 
- 
-    public List<String> chunkText(String text) {
-        final int MAX_CHARS = 1000; // change as needed
+    // Longest chunk, in characters
+    static final int MAX_CHUNK_CHARS = 1000;
 
+    public static List<String> chunkText(String text) {
         List<String> chunks = new ArrayList<>();
-        if (text == null || text.trim().isEmpty()) return chunks;
-
-        // 1) Split into paragraphs by two or more newlines (preserves single newlines inside)
-        String[] paragraphs = text.split("(\\r?\\n){2,}");
-
-        for (String para : paragraphs) {
-            String p = para.trim();
-            if (p.isEmpty()) continue;
-
-            // If short, add directly
-            if (p.length() <= MAX_CHARS) {
-                chunks.add(p);
-                continue;
-            }
-
-            // 2) Split paragraph into sentences using a simple regex.
-            // This keeps punctuation on the sentence and splits on whitespace after ., ! or ?
-            String[] sentences = p.split("(?<=[.!?])\\s+");
-
-            StringBuilder current = new StringBuilder();
-            for (String s : sentences) {
-                String sent = s.trim();
-                if (sent.isEmpty()) continue;
-
-                // If a single sentence is longer than MAX_CHARS, chunk it by characters
-                if (sent.length() > MAX_CHARS) {
-                    // flush existing
-                    if (current.length() > 0) {
-                        chunks.add(current.toString().trim());
-                        current.setLength(0);
-                    }
-                    // split this long sentence into pieces of MAX_CHARS
-                    int idx = 0;
-                    while (idx < sent.length()) {
-                        int end = Math.min(idx + MAX_CHARS, sent.length());
-                        chunks.add(sent.substring(idx, end).trim());
-                        idx = end;
-                    }
-                    continue;
-                }
-
-                // If adding this sentence would exceed MAX_CHARS, flush current chunk
-                if (current.length() > 0 && current.length() + 1 + sent.length() > MAX_CHARS) {
-                    chunks.add(current.toString().trim());
-                    current.setLength(0);
-                }
-
-                // append sentence (with a space if needed)
-                if (current.length() > 0) current.append(' ');
-                current.append(sent);
-            }
-
-            if (current.length() > 0) {
-                chunks.add(current.toString().trim());
-            }
-        }
+        if (text == null) return chunks;
 
+        // Paragraphs, then sentences of long paragraphs packed up to MAX_CHUNK_CHARS; see StreamingChunker
+        StreamingChunker.chunk(text, MAX_CHUNK_CHARS, chunks::add);
         return chunks;
     }
 
 
     public List<String> addDocument(String docId, String text) {
-        List<String> createdIds = new ArrayList<>();
+        return vectorDb.addSegments(toSegments(docId, text));
+    }
 
-        List<String> chunks = chunkText(text);
+    // Chunks text into segments tagged with their document and upload time, ready to embed
+    public static List<TextSegment> toSegments(String docId, String text) {
+        return toSegments(docId, chunkText(text), System.currentTimeMillis());
+    }
 
+    static List<TextSegment> toSegments(String docId, List<String> chunks, long uploadedAt) {
+        List<TextSegment> segments = new ArrayList<>(chunks.size());
         for (String chunk : chunks) {
-            Metadata meta = new Metadata();
-            meta.put("docId", docId);
-
-            TextSegment seg = new TextSegment(chunk, meta);
-            String id = vectorDb.addSegment(seg);
-
-            createdIds.add(id);
+            segments.add(toSegment(docId, chunk, uploadedAt));
         }
+        return segments;
+    }
+
+    static TextSegment toSegment(String docId, String chunk, long uploadedAt) {
+        Metadata meta = new Metadata();
+        meta.put(DocumentCatalog.DOC_ID, docId);
+        meta.put(DocumentCatalog.UPLOADED_AT, uploadedAt);
 
-        return createdIds;
+        return new TextSegment(chunk, meta);
     }
 
 
     public List<VectorDbManager.SearchResult> search(String query, int topK) {
+        return search(query, topK, SearchFilter.NONE);
+    }
+
+
+    public List<VectorDbManager.SearchResult> search(String query, int topK, SearchFilter filter) {
         if (query == null || query.isEmpty()) {
             return new ArrayList<>();
         }
@@ -119,7 +88,33 @@ public class RagService {
         TextSegment qSeg = new TextSegment(query, meta);
 
         Embedding emb = vectorDb.getEmbeddingModel().embed(qSeg).content();
-        return vectorDb.search(emb, topK, 0.6);
+        int candidates = topK * CANDIDATES_PER_RESULT;
+        List<VectorDbManager.SearchResult> semantic = vectorDb.search(emb, candidates, 0.6, filter);
+        // Like the vector floor, the store drops keyword hits matching too little of the question
+        List<VectorDbManager.SearchResult> lexical = vectorDb.searchLexical(query, candidates, filter);
+        return fuse(topK, semantic, lexical);
+    }
+
+    // Reciprocal-rank fusion: a chunk scores sum(1 / (RRF_K + rank)) over the lists it appears in
+    @SafeVarargs
+    static List<VectorDbManager.SearchResult> fuse(int topK, List<VectorDbManager.SearchResult>... rankings) {
+        Map<String, VectorDbManager.SearchResult> byId = new HashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>(); // ties keep the earlier ranking's order
+        for (List<VectorDbManager.SearchResult> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                VectorDbManager.SearchResult result = ranking.get(rank);
+                byId.putIfAbsent(result.getId(), result);
+                scores.merge(result.getId(), 1.0 / (RRF_K + rank + 1), Double::sum);
+            }
+        }
+
+        List<String> ids = new ArrayList<>(scores.keySet());
+        ids.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<VectorDbManager.SearchResult> fused = new ArrayList<>();
+        for (String id : ids.subList(0, Math.min(topK, ids.size()))) {
+            fused.add(new VectorDbManager.SearchResult(id, byId.get(id).getSegment(), scores.get(id)));
+        }
+        return fused;
     }
 
 
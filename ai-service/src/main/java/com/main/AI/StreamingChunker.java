@@ -0,0 +1,249 @@
+package com.main.AI;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass chunker that takes text in pieces and hands each chunk on as soon as its
+ * paragraph is complete. Paragraphs are separated by two or more line breaks ({@code \n} or
+ * {@code \r\n}) and trimmed; a {@link Policy} turns each one into chunks.
+ *
+ * The default {@link #characters character policy} makes exactly the chunks of the original
+ * regex splitter behind {@link RagService#chunkText}, without compiling patterns or
+ * materializing paragraphs and sentences:
+ * <ul>
+ *   <li>a paragraph of at most {@code maxChars} is one chunk;</li>
+ *   <li>a longer one is split into sentences after {@code .}, {@code !} or {@code ?} plus whitespace,
+ *       which are packed, space-joined, into chunks of at most {@code maxChars};</li>
+ *   <li>a sentence longer than {@code maxChars} is cut into pieces of {@code maxChars}.</li>
+ * </ul>
+ *
+ * Only the unfinished paragraph is buffered between calls. Not thread-safe.
+ */
+public final class StreamingChunker {
+
+    /** Turns paragraphs into chunks; may carry state from one paragraph to the next. */
+    public interface Policy {
+        /** {@code text[start, end)} is a complete, trimmed, non-empty paragraph. */
+        void paragraph(CharSequence text, int start, int end, Consumer<String> chunks);
+
+        /** Called after the last paragraph. */
+        default void finish(Consumer<String> chunks) {
+        }
+    }
+
+    /** Receives {@code [start, end)} of a span of the text. */
+    @FunctionalInterface
+    public interface Span {
+        void accept(int start, int end);
+    }
+
+    private final Policy policy;
+    private final Consumer<String> chunks;
+    private final StringBuilder pending = new StringBuilder();
+    // Everything before this offset of pending was scanned and holds no complete paragraph break
+    private int scanFrom;
+
+    public StreamingChunker(int maxChars, Consumer<String> chunks) {
+        this(characters(maxChars), chunks);
+    }
+
+    public StreamingChunker(Policy policy, Consumer<String> chunks) {
+        this.policy = policy;
+        this.chunks = chunks;
+    }
+
+    /** The original splitter's policy, chunks of at most {@code maxChars}. */
+    public static Policy characters(int maxChars) {
+        return new CharacterPolicy(maxChars);
+    }
+
+    public static void chunk(CharSequence text, int maxChars, Consumer<String> chunks) {
+        StreamingChunker chunker = new StreamingChunker(maxChars, chunks);
+        chunker.append(text);
+        chunker.finish();
+    }
+
+    public static void chunk(Reader reader, int maxChars, Consumer<String> chunks) throws IOException {
+        StreamingChunker chunker = new StreamingChunker(maxChars, chunks);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            chunker.append(CharBuffer.wrap(buffer, 0, read));
+        }
+        chunker.finish();
+    }
+
+    /** Adds the next piece of text, chunking every paragraph it completes. */
+    public void append(CharSequence text) {
+        pending.append(text);
+        scan(false);
+    }
+
+    /** Chunks the last paragraph; the chunker is empty again afterwards. */
+    public void finish() {
+        scan(true);
+        paragraph(0, pending.length());
+        pending.setLength(0);
+        scanFrom = 0;
+        policy.finish(chunks);
+    }
+
+    // Emits the paragraphs ended by complete breaks and drops them from pending. A run of line
+    // breaks reaching the end of pending may still grow, so unless this is the last piece it is
+    // left to be scanned again with the next one.
+    private void scan(boolean last) {
+        int length = pending.length();
+        int paragraphStart = 0;
+        int i = scanFrom;
+        while (i < length) {
+            char c = pending.charAt(i);
+            if (c != '\n' && c != '\r') {
+                i++;
+                continue;
+            }
+            int end = i;
+            int breaks = 0;
+            while (true) {
+                if (end < length && pending.charAt(end) == '\n') {
+                    end++;
+                } else if (end + 1 < length && pending.charAt(end) == '\r' && pending.charAt(end + 1) == '\n') {
+                    end += 2;
+                } else {
+                    break;
+                }
+                breaks++;
+            }
+            boolean open = end == length || (end == length - 1 && pending.charAt(end) == '\r');
+            if (open && !last) {
+                break;
+            }
+            if (breaks >= 2) {
+                paragraph(paragraphStart, i);
+                paragraphStart = end;
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        pending.delete(0, paragraphStart);
+        scanFrom = i - paragraphStart;
+    }
+
+    private void paragraph(int start, int end) {
+        while (start < end && pending.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && pending.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start < end) {
+            policy.paragraph(pending, start, end, chunks);
+        }
+    }
+
+    /**
+     * Splits the trimmed paragraph {@code text[start, end)} into sentences, which end after
+     * {@code .}, {@code !} or {@code ?} followed by whitespace; the whitespace is dropped and
+     * each sentence is trimmed, and empty ones are skipped.
+     */
+    public static void sentences(CharSequence text, int start, int end, Span sentence) {
+        int sentenceStart = start;
+        int i = start + 1;
+        while (i < end) {
+            if (isWhitespace(text.charAt(i)) && isSentenceEnd(text.charAt(i - 1))) {
+                int next = i;
+                while (next < end && isWhitespace(text.charAt(next))) {
+                    next++;
+                }
+                trimmed(text, sentenceStart, i, sentence);
+                sentenceStart = next;
+                i = next + 1;
+            } else {
+                i++;
+            }
+        }
+        trimmed(text, sentenceStart, end, sentence);
+    }
+
+    private static void trimmed(CharSequence text, int start, int end, Span span) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start < end) {
+            span.accept(start, end);
+        }
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    // The characters \s matches
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // The original splitter: short paragraphs whole, long ones as packed sentences
+    private static final class CharacterPolicy implements Policy {
+        private final int maxChars;
+        private final StringBuilder current = new StringBuilder();
+
+        CharacterPolicy(int maxChars) {
+            if (maxChars <= 0) {
+                throw new IllegalArgumentException("maxChars must be positive");
+            }
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void paragraph(CharSequence text, int start, int end, Consumer<String> chunks) {
+            if (end - start <= maxChars) {
+                chunks.accept(text.subSequence(start, end).toString());
+                return;
+            }
+            sentences(text, start, end, (from, to) -> sentence(text, from, to, chunks));
+            if (current.length() > 0) {
+                chunks.accept(current.toString());
+                current.setLength(0);
+            }
+        }
+
+        private void sentence(CharSequence text, int start, int end, Consumer<String> chunks) {
+            int length = end - start;
+            if (length > maxChars) {
+                if (current.length() > 0) {
+                    chunks.accept(current.toString());
+                    current.setLength(0);
+                }
+                // Pieces are trimmed too, and kept even when that empties them
+                for (int piece = start; piece < end; piece += maxChars) {
+                    int pieceStart = piece;
+                    int pieceEnd = Math.min(piece + maxChars, end);
+                    while (pieceStart < pieceEnd && text.charAt(pieceStart) <= ' ') {
+                        pieceStart++;
+                    }
+                    while (pieceEnd > pieceStart && text.charAt(pieceEnd - 1) <= ' ') {
+                        pieceEnd--;
+                    }
+                    chunks.accept(text.subSequence(pieceStart, pieceEnd).toString());
+                }
+                return;
+            }
+
+            if (current.length() > 0 && current.length() + 1 + length > maxChars) {
+                chunks.accept(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(text, start, end);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.main.AI;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import com.main.AI.store.SegmentLog;
+import com.main.AI.store.SegmentStore;
+import com.main.AI.store.IndexConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Handle on one tenant's vector store.
+ * Queries hold the read lock, uploads and deletes hold the write lock, so work for
+ * different tenants never contends and one tenant's upload only blocks that tenant.
+ *
+ * On disk a tenant is a binary snapshot ({@code <id>.vdb}) plus an append-only log of
+ * the changes made since ({@code <id>.log}). Pre-binary tenants may still have a JSON
+ * {@code <id>.db} instead of a snapshot until their first compaction. With the HNSW index
+ * enabled, the graph for the snapshot is kept in {@code <id>.hnsw}; with the int8 index,
+ * the quantized vectors are kept in {@code <id>.q8}. The document catalog and the BM25 index
+ * of the snapshot are kept in {@code <id>.docs} and {@code <id>.bm25}. When chunk text is kept
+ * on disk, rows added since the snapshot spill their text to the scratch file {@code <id>.txt}.
+ */
+public class TenantStore {
+
+    private final String tenantId;
+    private final String snapshotPath;
+    private final String legacyPath;
+    private final String logPath;
+    private final String indexPath;
+    private final String quantizedPath;
+    private final String catalogPath;
+    private final String lexicalPath;
+    private final String textPath;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final VectorDbManager db;
+    private final RagService rag;
+    private volatile boolean loaded;
+    private volatile boolean resident;
+    private volatile boolean retired;
+
+    public TenantStore(String tenantId, String basePath,
+                       EmbeddingModel embeddingModel, IndexConfig indexConfig, ChatLanguageModel chatModel) {
+        this.tenantId = tenantId;
+        this.snapshotPath = basePath + ".vdb";
+        this.legacyPath = basePath + ".db";
+        this.logPath = basePath + ".log";
+        this.indexPath = basePath + ".hnsw";
+        this.quantizedPath = basePath + ".q8";
+        this.catalogPath = basePath + ".docs";
+        this.lexicalPath = basePath + ".bm25";
+        this.textPath = basePath + ".txt";
+        this.db = new VectorDbManager(embeddingModel, indexConfig);
+        this.rag = new RagService(db, chatModel);
+    }
+
+    public String getTenantId() { return tenantId; }
+    public VectorDbManager getDb() { return db; }
+    public RagService getRag() { return rag; }
+
+    public Lock readLock() { return lock.readLock(); }
+    public Lock writeLock() { return lock.writeLock(); }
+
+    boolean isLoaded() { return loaded; }
+    boolean isResident() { return resident; }
+    // Set under the write lock once the registry drops this handle; whoever still holds it takes a fresh one
+    boolean isRetired() { return retired; }
+
+    // Whether the tenant at basePath has anything on disk to load
+    static boolean exists(String basePath) {
+        return new File(basePath + ".vdb").exists() || new File(basePath + ".db").exists()
+                || new File(basePath + ".log").exists();
+    }
+
+    // Caller holds the write lock
+    long load() {
+        if (new File(snapshotPath).exists()) {
+            db.loadFromFile(snapshotPath);
+        } else if (new File(legacyPath).exists()) {
+            db.loadFromFile(legacyPath);
+        } else {
+            db.reset();
+        }
+        db.openTextBlob(textPath);
+        db.openLog(logPath);
+        loaded = true;
+        resident = false;
+        return residentBytes();
+    }
+
+    // Caller holds the read or write lock. Pages the whole snapshot in, unless the index scores
+    // from its own copy of the vectors, making the tenant hot.
+    void makeResident() {
+        db.getStore().makeResident();
+        resident = true;
+    }
+
+    // Demotes a hot tenant to warm: still mapped, but the OS may drop its pages. Skipped if busy.
+    boolean tryReleaseResident() {
+        if (!lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (loaded) {
+                db.getStore().releaseResident();
+            }
+            resident = false;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock. Only the log is written, so the cost is the size of the change.
+    long save() {
+        db.flushLog();
+        return residentBytes();
+    }
+
+    // Caller holds the read lock
+    boolean needsCompaction(long minLogBytes, double maxDeadRatio) {
+        SegmentLog log = db.getLog();
+        if (!loaded || log == null) {
+            return false;
+        }
+        // Deletes only log small tombstones, so the rows they free are counted separately
+        SegmentStore store = db.getStore();
+        if (store.deletedRows() > 0 && store.deletedRows() >= maxDeadRatio * store.rowCount()) {
+            return true;
+        }
+        try {
+            long logBytes = log.sizeBytes();
+            // Compacting once the log outgrows the snapshot keeps total rewrite cost linear
+            return logBytes >= minLogBytes && logBytes >= baseBytes();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Caller holds the read lock. The log is kept: replaying it over the new snapshot is harmless.
+    void writeSnapshot() {
+        db.saveToFile(snapshotPath);
+        new File(legacyPath).delete();
+    }
+
+    // Caller holds the write lock and nothing has been logged since writeSnapshot()
+    void switchToSnapshot() {
+        db.loadFromFile(snapshotPath);
+        db.openTextBlob(textPath);
+        db.truncateLog();
+        if (resident) {
+            db.getStore().makeResident();
+        }
+    }
+
+    // Caller holds the write lock
+    boolean delete() {
+        db.closeLog();
+        db.reset();
+        loaded = false;
+        resident = false;
+        retired = true;
+        boolean deleted = new File(snapshotPath).delete();
+        deleted |= new File(legacyPath).delete();
+        new File(indexPath).delete();
+        new File(quantizedPath).delete();
+        new File(catalogPath).delete();
+        new File(lexicalPath).delete();
+        new File(textPath).delete();
+        return new File(logPath).delete() || deleted;
+    }
+
+    // Drops the in-memory store unless someone is using it right now, retiring the handle
+    boolean tryUnload() {
+        if (!lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            db.closeLog();
+            db.reset();
+            loaded = false;
+            resident = false;
+            retired = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Memory a warm tenant holds for sure: the rows logged since its snapshot and the index's own copy of the vectors
+    long warmBytes() {
+        return new File(logPath).length() + db.getStore().getIndex().heapBytes();
+    }
+
+    // Memory a hot tenant holds: its files paged in, or no more than when warm if they aren't
+    private long residentBytes() {
+        return db.getStore().getIndex().readsEveryVector() ? diskBytes() + db.getStore().getIndex().heapBytes()
+                : warmBytes();
+    }
+
+    private long baseBytes() {
+        File snapshot = new File(snapshotPath);
+        return snapshot.exists() ? snapshot.length() : new File(legacyPath).length();
+    }
+
+    private long diskBytes() {
+        return baseBytes() + new File(logPath).length();
+    }
+}
@@ -0,0 +1,230 @@
+package com.main.AI;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tiering policy for tenant stores.
+ *
+ * A hot tenant is loaded with its whole snapshot paged in; a warm tenant is loaded but only
+ * mapped, so the OS keeps just the pages queries touch; a cold tenant is only on disk.
+ * Any access promotes a tenant to hot. Hot tenants weigh the size of their files, warm ones
+ * only their log (the rows held in memory); both add what their index holds on the heap. An
+ * int8 tenant keeps only its codes resident, so it weighs the same hot as warm. Once the total
+ * passes the memory budget the least recently used hot tenants are demoted to warm, then warm
+ * ones unloaded. Tenants idle for longer than the hot or warm idle time are demoted the same
+ * way by a background sweep.
+ * Tenants that are busy when picked are skipped.
+ */
+public class TenantStoreCache {
+
+    public enum Tier { HOT, WARM, COLD }
+
+    private final long maxBytes;
+    private final long hotIdleNanos;
+    private final long warmIdleNanos;
+    private final LinkedHashMap<String, CachedStore> stores = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private Consumer<TenantStore> onEvicted = store -> { };
+
+    private long hits;
+    private long misses;
+    private long demotions;
+    private long evictions;
+    private final Promotions fromWarm = new Promotions();
+    private final Promotions fromCold = new Promotions();
+
+    /** An idle time of 0 disables demotion by idleness for that tier. */
+    public TenantStoreCache(long maxBytes, long hotIdleMillis, long warmIdleMillis) {
+        this.maxBytes = maxBytes;
+        this.hotIdleNanos = TimeUnit.MILLISECONDS.toNanos(hotIdleMillis);
+        this.warmIdleNanos = TimeUnit.MILLISECONDS.toNanos(warmIdleMillis);
+        long shortestIdle = Math.min(hotIdleMillis > 0 ? hotIdleMillis : Long.MAX_VALUE,
+                warmIdleMillis > 0 ? warmIdleMillis : Long.MAX_VALUE);
+        if (shortestIdle != Long.MAX_VALUE) {
+            long period = Math.min(Math.max(shortestIdle / 4, 1000), 60_000);
+            ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "tenant-tiering");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Called with each tenant unloaded to cold, under this cache's lock. */
+    public synchronized void onEvicted(Consumer<TenantStore> listener) {
+        this.onEvicted = listener;
+    }
+
+    /** Counts an access to a loaded tenant and returns its tier, which is WARM if it needs promoting. */
+    public synchronized Tier recordHit(String tenantId) {
+        hits++;
+        CachedStore cached = stores.get(tenantId);
+        if (cached == null) {
+            return Tier.COLD;
+        }
+        cached.lastAccess = System.nanoTime();
+        return cached.tier;
+    }
+
+    public synchronized void recordMiss() {
+        misses++;
+    }
+
+    /** Adds a tenant that was just loaded and made resident, or updates its weight after a save. */
+    public synchronized void put(TenantStore store, long weight) {
+        String tenantId = store.getTenantId();
+        CachedStore previous = stores.get(tenantId);
+        Tier tier = previous != null ? previous.tier : Tier.HOT;
+        invalidate(tenantId);
+        CachedStore cached = new CachedStore(store, weight, store.warmBytes(), tier);
+        stores.put(tenantId, cached);
+        usedBytes += cached.weight();
+        enforceBudget(tenantId);
+    }
+
+    /** A warm tenant was made resident again after {@code nanos}. */
+    public synchronized void promoted(String tenantId, long nanos) {
+        fromWarm.record(nanos);
+        CachedStore cached = stores.get(tenantId);
+        if (cached != null && cached.tier == Tier.WARM) {
+            usedBytes -= cached.weight();
+            cached.tier = Tier.HOT;
+            usedBytes += cached.weight();
+            enforceBudget(tenantId);
+        }
+    }
+
+    /** A cold tenant was loaded and made resident in {@code nanos}. */
+    public synchronized void loaded(long nanos) {
+        fromCold.record(nanos);
+    }
+
+    public synchronized void invalidate(String tenantId) {
+        CachedStore removed = stores.remove(tenantId);
+        if (removed != null) {
+            usedBytes -= removed.weight();
+        }
+    }
+
+    /** Demotes tenants idle for longer than their tier allows, then enforces the budget. */
+    public synchronized void sweep() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, CachedStore>> it = stores.entrySet().iterator();
+        while (it.hasNext()) {
+            CachedStore cached = it.next().getValue();
+            long idle = now - cached.lastAccess;
+            if (cached.tier == Tier.HOT && hotIdleNanos > 0 && idle > hotIdleNanos) {
+                demote(cached);
+            } else if (cached.tier == Tier.WARM && warmIdleNanos > 0 && idle > warmIdleNanos
+                    && cached.store.tryUnload()) {
+                usedBytes -= cached.weight();
+                it.remove();
+                evictions++;
+                onEvicted.accept(cached.store);
+            }
+        }
+        enforceBudget(null);
+    }
+
+    public synchronized Map<String, Object> stats(int knownTenants) {
+        int hot = 0;
+        for (CachedStore cached : stores.values()) {
+            if (cached.tier == Tier.HOT) hot++;
+        }
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        tiers.put("hot", hot);
+        tiers.put("warm", stores.size() - hot);
+        tiers.put("cold", Math.max(0, knownTenants - stores.size()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tenants", stores.size());
+        stats.put("tiers", tiers);
+        stats.put("usedBytes", usedBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("demotions", demotions);
+        stats.put("evictions", evictions);
+        stats.put("promotionsFromWarm", fromWarm.stats());
+        stats.put("promotionsFromCold", fromCold.stats());
+        return stats;
+    }
+
+    // Least recently used first: hot tenants drop to warm, and only then are warm ones unloaded
+    private void enforceBudget(String keep) {
+        Iterator<CachedStore> hot = stores.values().iterator();
+        while (usedBytes > maxBytes && hot.hasNext()) {
+            CachedStore cached = hot.next();
+            if (cached.tier == Tier.HOT && !cached.store.getTenantId().equals(keep)) {
+                demote(cached);
+            }
+        }
+        Iterator<Map.Entry<String, CachedStore>> warm = stores.entrySet().iterator();
+        while (usedBytes > maxBytes && warm.hasNext()) {
+            Map.Entry<String, CachedStore> eldest = warm.next();
+            CachedStore cached = eldest.getValue();
+            if (cached.tier == Tier.WARM && !eldest.getKey().equals(keep) && cached.store.tryUnload()) {
+                usedBytes -= cached.weight();
+                warm.remove();
+                evictions++;
+                onEvicted.accept(cached.store);
+            }
+        }
+    }
+
+    private void demote(CachedStore cached) {
+        if (cached.store.tryReleaseResident()) {
+            usedBytes -= cached.weight();
+            cached.tier = Tier.WARM;
+            usedBytes += cached.weight();
+            demotions++;
+        }
+    }
+
+    private static class CachedStore {
+        private final TenantStore store;
+        private final long hotBytes;
+        private final long warmBytes;
+        private Tier tier;
+        private long lastAccess = System.nanoTime();
+
+        CachedStore(TenantStore store, long hotBytes, long warmBytes, Tier tier) {
+            this.store = store;
+            this.hotBytes = hotBytes;
+            this.warmBytes = warmBytes;
+            this.tier = tier;
+        }
+
+        long weight() {
+            return tier == Tier.HOT ? hotBytes : warmBytes;
+        }
+    }
+
+    // Count and latency of promotions to hot from one tier
+    private static class Promotions {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", count);
+            stats.put("avgMillis", count == 0 ? 0.0 : totalNanos / 1e6 / count);
+            stats.put("maxMillis", maxNanos / 1e6);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.main.AI;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import com.main.AI.store.IndexConfig;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one {@link TenantStore} per tenant id and runs work against it under
+ * the tenant's read or write lock, loading the store from disk on first use and
+ * promoting it to hot on every use, as {@link TenantStoreCache} tiers them.
+ *
+ * A handle lives only while its tenant is loaded: reads of tenants with nothing on disk run
+ * against a throwaway empty store, and handles are dropped when the tenant is deleted or
+ * unloaded to cold. A dropped handle is marked retired, so threads that were waiting on its
+ * lock start over with the current one.
+ */
+public class TenantStoreRegistry {
+
+    private static final String DB_DIR = "./src/main/resources/dbs/";
+
+    private final Map<String, TenantStore> stores = new ConcurrentHashMap<>();
+    private final String dbDir;
+    private final EmbeddingModel embeddingModel;
+    private final IndexConfig indexConfig;
+    private final ChatLanguageModel chatModel;
+    private final TenantStoreCache cache;
+    private final StoreCompactor compactor;
+
+    @FunctionalInterface
+    public interface TenantAction<T> {
+        T apply(TenantStore store) throws IOException;
+    }
+
+    public TenantStoreRegistry(EmbeddingModel embeddingModel, IndexConfig indexConfig, ChatLanguageModel chatModel,
+                               TenantStoreCache cache, long minCompactionBytes, double maxDeadRatio) {
+        this(DB_DIR, embeddingModel, indexConfig, chatModel, cache, minCompactionBytes, maxDeadRatio);
+    }
+
+    TenantStoreRegistry(String dbDir, EmbeddingModel embeddingModel, IndexConfig indexConfig,
+                        ChatLanguageModel chatModel, TenantStoreCache cache,
+                        long minCompactionBytes, double maxDeadRatio) {
+        this.dbDir = dbDir;
+        this.embeddingModel = embeddingModel;
+        this.indexConfig = indexConfig;
+        this.chatModel = chatModel;
+        this.cache = cache;
+        this.compactor = new StoreCompactor(minCompactionBytes, maxDeadRatio);
+        cache.onEvicted(store -> stores.remove(store.getTenantId(), store));
+    }
+
+    public <T> T read(String tenantId, TenantAction<T> action) throws IOException {
+        while (true) {
+            TenantStore store = stores.get(tenantId);
+            if (store == null) {
+                if (!TenantStore.exists(basePath(tenantId))) {
+                    return action.apply(newStore(tenantId));
+                }
+                store = handle(tenantId);
+            }
+            store.readLock().lock();
+            try {
+                if (store.isRetired()) {
+                    continue;
+                }
+                if (store.isLoaded()) {
+                    promoteIfWarm(store);
+                } else {
+                    // Loading needs the write lock; ReentrantReadWriteLock only allows downgrading
+                    store.readLock().unlock();
+                    store.writeLock().lock();
+                    try {
+                        if (!store.isRetired()) {
+                            ensureLoaded(store);
+                        }
+                        store.readLock().lock();
+                    } finally {
+                        store.writeLock().unlock();
+                    }
+                    if (store.isRetired()) {
+                        continue;
+                    }
+                }
+                return action.apply(store);
+            } finally {
+                store.readLock().unlock();
+            }
+        }
+    }
+
+    public <T> T write(String tenantId, TenantAction<T> action) throws IOException {
+        while (true) {
+            TenantStore store = handle(tenantId);
+            store.writeLock().lock();
+            try {
+                if (store.isRetired()) {
+                    continue;
+                }
+                if (store.isLoaded()) {
+                    promoteIfWarm(store);
+                } else {
+                    ensureLoaded(store);
+                }
+                return action.apply(store);
+            } finally {
+                store.writeLock().unlock();
+            }
+        }
+    }
+
+    // Caller holds the tenant's write lock
+    public void save(TenantStore store) {
+        cache.put(store, store.save());
+        compactor.maybeCompact(store);
+    }
+
+    public boolean delete(String tenantId) {
+        while (true) {
+            TenantStore store = handle(tenantId);
+            store.writeLock().lock();
+            try {
+                if (store.isRetired()) {
+                    continue;
+                }
+                cache.invalidate(tenantId);
+                boolean deleted = store.delete();
+                stores.remove(tenantId, store);
+                return deleted;
+            } finally {
+                store.writeLock().unlock();
+            }
+        }
+    }
+
+    // Tenants with a handle, loaded or about to be
+    int handleCount() {
+        return stores.size();
+    }
+
+    public Map<String, Object> stats() {
+        return cache.stats(stores.size());
+    }
+
+    public Map<String, Object> compactionStats() {
+        return compactor.stats();
+    }
+
+    // A retired handle may linger until its eviction removes it, so it is replaced here too
+    private TenantStore handle(String tenantId) {
+        return stores.compute(tenantId,
+                (id, store) -> store == null || store.isRetired() ? newStore(id) : store);
+    }
+
+    private TenantStore newStore(String tenantId) {
+        return new TenantStore(tenantId, basePath(tenantId), embeddingModel, indexConfig, chatModel);
+    }
+
+    private String basePath(String tenantId) {
+        return dbDir + tenantId;
+    }
+
+    // Caller holds the tenant's read or write lock
+    private void promoteIfWarm(TenantStore store) {
+        if (cache.recordHit(store.getTenantId()) == TenantStoreCache.Tier.WARM) {
+            long start = System.nanoTime();
+            store.makeResident();
+            cache.promoted(store.getTenantId(), System.nanoTime() - start);
+        }
+    }
+
+    private void ensureLoaded(TenantStore store) {
+        if (!store.isLoaded()) {
+            long start = System.nanoTime();
+            cache.recordMiss();
+            long weight = store.load();
+            store.makeResident();
+            cache.put(store, weight);
+            cache.loaded(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.main.AI;
+
+import dev.langchain4j.model.embedding.TokenCountEstimator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Sizes chunks by the embedding model's tokens instead of characters, so each one fills the
+ * model's input window without running past it, where the rest would be cut off unseen.
+ *
+ * Sentences are packed, across paragraph breaks, until the next one would exceed
+ * {@code maxTokens}; each chunk then starts with the last sentences of the previous one, up to
+ * {@code overlapTokens}, so a passage split between two chunks is still whole in one of them.
+ * A sentence over the budget on its own is cut between words. Token counts are the model
+ * tokenizer's, less its fixed special tokens, summed per sentence.
+ */
+class TokenChunkPolicy implements StreamingChunker.Policy {
+
+    private record Unit(String text, int tokens, boolean startsParagraph) {
+    }
+
+    private final TokenCountEstimator tokenizer;
+    private final int budget;
+    private final int overlapTokens;
+    // Special tokens ([CLS], [SEP]) the tokenizer counts for any input
+    private final int fixedTokens;
+    private final Deque<Unit> current = new ArrayDeque<>();
+    private int currentTokens;
+    // Units at the front of current already sent as part of the previous chunk
+    private int carried;
+
+    TokenChunkPolicy(TokenCountEstimator tokenizer, int maxTokens, int overlapTokens) {
+        this.tokenizer = tokenizer;
+        this.fixedTokens = tokenizer.estimateTokenCount("");
+        this.budget = maxTokens - fixedTokens;
+        if (budget <= 0) {
+            throw new IllegalArgumentException("maxTokens must leave room for text");
+        }
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, budget / 2));
+    }
+
+    @Override
+    public void paragraph(CharSequence text, int start, int end, Consumer<String> chunks) {
+        boolean[] first = {true};
+        StreamingChunker.sentences(text, start, end, (from, to) -> {
+            sentence(text.subSequence(from, to).toString(), first[0], chunks);
+            first[0] = false;
+        });
+    }
+
+    @Override
+    public void finish(Consumer<String> chunks) {
+        if (current.size() > carried) {
+            emit(chunks);
+        }
+        current.clear();
+        currentTokens = 0;
+        carried = 0;
+    }
+
+    private void sentence(String sentence, boolean startsParagraph, Consumer<String> chunks) {
+        int tokens = count(sentence);
+        if (tokens <= budget) {
+            add(new Unit(sentence, tokens, startsParagraph), chunks);
+            return;
+        }
+
+        // Too long on its own: cut between words into pieces that fit
+        StringBuilder piece = new StringBuilder();
+        int pieceTokens = 0;
+        boolean first = startsParagraph;
+        for (String word : sentence.split("\\s+")) {
+            int wordTokens = count(word);
+            if (piece.length() > 0 && pieceTokens + wordTokens > budget) {
+                add(new Unit(piece.toString(), pieceTokens, first), chunks);
+                first = false;
+                piece.setLength(0);
+                pieceTokens = 0;
+            }
+            if (piece.length() > 0) {
+                piece.append(' ');
+            }
+            piece.append(word);
+            pieceTokens += wordTokens;
+        }
+        if (piece.length() > 0) {
+            add(new Unit(piece.toString(), pieceTokens, first), chunks);
+        }
+    }
+
+    private void add(Unit unit, Consumer<String> chunks) {
+        if (currentTokens + unit.tokens() > budget && current.size() > carried) {
+            emit(chunks);
+            // Keep the tail of the chunk just sent as the start of the next
+            int keep = 0;
+            int keepTokens = 0;
+            for (var it = current.descendingIterator(); it.hasNext(); ) {
+                Unit last = it.next();
+                if (keepTokens + last.tokens() > overlapTokens) {
+                    break;
+                }
+                keep++;
+                keepTokens += last.tokens();
+            }
+            while (current.size() > keep) {
+                currentTokens -= current.removeFirst().tokens();
+            }
+            carried = current.size();
+        }
+        while (currentTokens + unit.tokens() > budget && !current.isEmpty()) {
+            currentTokens -= current.removeFirst().tokens();
+            carried = Math.max(0, carried - 1);
+        }
+        current.addLast(unit);
+        currentTokens += unit.tokens();
+    }
+
+    private void emit(Consumer<String> chunks) {
+        StringBuilder chunk = new StringBuilder();
+        for (Unit unit : current) {
+            if (chunk.length() > 0) {
+                chunk.append(unit.startsParagraph() ? "\n\n" : " ");
+            }
+            chunk.append(unit.text());
+        }
+        chunks.accept(chunk.toString());
+    }
+
+    private int count(String text) {
+        return Math.max(0, tokenizer.estimateTokenCount(text) - fixedTokens);
+    }
+}
@@ -4,74 +4,153 @@ import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
-import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.main.AI.store.BinaryStoreFormat;
+import com.main.AI.store.DocumentCatalog;
+import com.main.AI.store.IndexConfig;
+import com.main.AI.store.LexicalIndex;
+import com.main.AI.store.NearDuplicateIndex;
+import com.main.AI.store.ScoredRow;
+import com.main.AI.store.SearchFilter;
+import com.main.AI.store.SegmentBlob;
+import com.main.AI.store.SegmentLog;
+import com.main.AI.store.SegmentStore;
+import com.main.AI.store.StoreConverter;
+import com.main.AI.store.VectorMath;
 
-import java.util.Set;
-import java.util.LinkedHashSet;
-import java.text.BreakIterator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class VectorDbManager {
 
-    private EmbeddingStore<TextSegment> store;
+    private SegmentStore store;
+    private SegmentLog log;
     private final EmbeddingModel embeddingModel;
+    private final IndexConfig indexConfig;
 
     public VectorDbManager() {
-        this.store = new InMemoryEmbeddingStore<>();
-        this.embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        this(new AllMiniLmL6V2EmbeddingModel(), IndexConfig.flat());
+    }
+
+    // Lets every tenant's store share one loaded ONNX model
+    public VectorDbManager(EmbeddingModel embeddingModel, IndexConfig indexConfig) {
+        this.embeddingModel = embeddingModel;
+        this.indexConfig = indexConfig;
+        reset();
     }
 
     public String addSegment(TextSegment segment) {
-        Embedding embedding = embeddingModel.embed(segment).content();
-        return store.add(embedding, segment);
+        return add(embeddingModel.embed(segment).content(), segment);
     }
 
+    // Embeds every segment in one embedAll call, which the model may split into batches
+    // Near duplicates within a document are dropped before embedding
     public List<String> addSegments(List<TextSegment> segments) {
-        List<String> ids = new ArrayList<>();
-        for (TextSegment segment : segments) {
-            String id = addSegment(segment);
-            ids.add(id);
+        List<TextSegment> kept = new ArrayList<>(segments.size());
+        for (int i : distinct(segments)) {
+            kept.add(segments.get(i));
         }
-        return ids;
+        if (kept.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return addAll(kept, embeddingModel.embedAll(kept).content());
     }
 
-   
-public List<String> retrieveDocuments() throws JsonProcessingException {
-    String jsonContent = ((InMemoryEmbeddingStore<TextSegment>) store).serializeToJson();
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode root = mapper.readTree(jsonContent);
+    // For segments embedded ahead of time, so the caller can do that before taking the write lock.
+    // Returns the ids of the segments added, without the near duplicates dropped.
+    public List<String> addEmbedded(List<TextSegment> segments, List<Embedding> embeddings) {
+        List<TextSegment> kept = new ArrayList<>(segments.size());
+        List<Embedding> keptEmbeddings = new ArrayList<>(segments.size());
+        for (int i : distinct(segments)) {
+            kept.add(segments.get(i));
+            keptEmbeddings.add(embeddings.get(i));
+        }
+        return addAll(kept, keptEmbeddings);
+    }
 
-    Set<String> fileNameSet = new LinkedHashSet<>(); // preserves insertion order
+    private List<String> addAll(List<TextSegment> segments, List<Embedding> embeddings) {
+        List<String> ids = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            ids.add(add(embeddings.get(i), segments.get(i)));
+        }
+        return ids;
+    }
 
-    // Loop through entries
-    for (JsonNode entry : root.path("entries")) {
-        JsonNode docIdNode = entry
-                .path("embedded")
-                .path("metadata")
-                .path("metadata")
-                .path("docId");
+    // Positions of the segments to keep: those whose text doesn't nearly repeat a live chunk of
+    // the same document, stored or earlier in the batch. Repeats across documents are kept, as
+    // each document needs its own copy to survive deleting the other and to match its filters.
+    private List<Integer> distinct(List<TextSegment> segments) {
+        List<Integer> kept = new ArrayList<>(segments.size());
+        int distance = indexConfig.duplicateDistance();
+        if (distance < 0) {
+            for (int i = 0; i < segments.size(); i++) {
+                kept.add(i);
+            }
+            return kept;
+        }
+        // Only documents that already have rows are read back, and only their own rows
+        Map<String, NearDuplicateIndex> stored = new HashMap<>();
+        NearDuplicateIndex batch = new NearDuplicateIndex(distance);
+        for (int i = 0; i < segments.size(); i++) {
+            String text = segments.get(i).text();
+            String docId = docId(segments.get(i));
+            DocumentCatalog.Document document = docId == null ? null : store.getCatalog().get(docId);
+            if ((document == null || stored.computeIfAbsent(docId,
+                            id -> NearDuplicateIndex.scan(store, document, distance)).findDuplicate(text) < 0)
+                    && batch.findDuplicate(text, row -> Objects.equals(docId, docId(segments.get(row)))) < 0) {
+                kept.add(i);
+                batch.added(i, text);
+            }
+        }
+        NearDuplicateIndex.record(segments.size(), segments.size() - kept.size());
+        return kept;
+    }
+
+    private static String docId(TextSegment segment) {
+        return segment.metadata().getString(DocumentCatalog.DOC_ID);
+    }
 
-        if (!docIdNode.isMissingNode()) {
-            fileNameSet.add(docIdNode.asText()); // Set automatically prevents duplicates
+    private String add(Embedding embedding, TextSegment segment) {
+        String id = store.add(embedding, segment);
+        if (log != null) {
+            log.appendAdd(id, embedding, segment);
         }
+        return id;
     }
 
-    List<String> fileNames = new ArrayList<>(fileNameSet);
+    public List<String> retrieveDocuments() {
+        return store.getCatalog().documentIds();
+    }
 
-    // Print result
-    fileNames.forEach(System.out::println);
-    return fileNames;
-}
+    public DocumentCatalog getCatalog() {
+        return store.getCatalog();
+    }
 
     public void deleteSegment(String id) {
-        store.remove(id);
+        if (store.remove(id) && log != null) {
+            log.appendDelete(id);
+        }
+    }
+
+    // Removes every chunk of docId through the catalog; each removal is logged as a tombstone
+    public int deleteDocument(String docId) {
+        DocumentCatalog.Document document = store.getCatalog().get(docId);
+        if (document == null) {
+            return 0;
+        }
+        List<String> chunkIds = new ArrayList<>(document.chunkIds());
+        for (String id : chunkIds) {
+            deleteSegment(id);
+        }
+        return chunkIds.size();
     }
 
     public String updateSegment(String id, TextSegment newSegment) {
@@ -81,22 +160,179 @@ public List<String> retrieveDocuments() throws JsonProcessingException {
 
     public void clear() {
         store.removeAll();
+        if (log != null) {
+            log.appendClear();
+        }
     }
 
     public void saveToFile(String filePath) {
-        ((InMemoryEmbeddingStore<TextSegment>) store).serializeToFile(filePath);
+        Path path = Path.of(filePath);
+        try {
+            long stamp = BinaryStoreFormat.write(path, store,
+                    indexConfig.textStorage() == IndexConfig.TextStorage.COMPRESSED);
+            Path indexFile = indexConfig.indexFile(path);
+            if (indexFile != null) {
+                store.getIndex().write(indexFile, stamp);
+            }
+            store.getCatalog().write(DocumentCatalog.catalogPath(path), stamp, store);
+            store.getLexicalIndex().write(LexicalIndex.indexPath(path), stamp, store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save vector store to " + filePath, e);
+        }
     }
 
+    // Maps binary stores in place; legacy JSON stores are parsed into off-heap rows
     public void loadFromFile(String filePath) {
-        store = InMemoryEmbeddingStore.fromFile(filePath);
+        Path path = Path.of(filePath);
+        try {
+            replaceStore(BinaryStoreFormat.isBinary(path)
+                    ? new SegmentStore(BinaryStoreFormat.open(path))
+                    : StoreConverter.readJson(path));
+            store.setIndex(indexConfig.create(store, path));
+            DocumentCatalog catalog = DocumentCatalog.read(DocumentCatalog.catalogPath(path), store.snapshotStamp());
+            store.setCatalog(catalog != null ? catalog : DocumentCatalog.scan(store));
+            // Left unset when missing, so it's only rebuilt if a query needs it
+            store.setLexicalIndex(LexicalIndex.read(LexicalIndex.indexPath(path), store.snapshotStamp(), store.rowCount()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load vector store from " + filePath, e);
+        }
+    }
+
+    // Starts over with an empty store
+    public void reset() {
+        replaceStore(new SegmentStore());
+        try {
+            store.setIndex(indexConfig.create(store, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Keeps the text of rows added from now on in a scratch file rather than on the heap,
+    // when the config asks for it. Called after each load, before the log is replayed.
+    public void openTextBlob(String filePath) {
+        if (indexConfig.textStorage() == IndexConfig.TextStorage.HEAP) {
+            return;
+        }
+        try {
+            store.setTextBlob(SegmentBlob.create(Path.of(filePath),
+                    indexConfig.textStorage() == IndexConfig.TextStorage.COMPRESSED));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segment blob " + filePath, e);
+        }
+    }
+
+    // Replays the log onto the current store, then records every later change in it
+    public void openLog(String filePath) {
+        closeLog();
+        try {
+            log = SegmentLog.open(Path.of(filePath), store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segment log " + filePath, e);
+        }
+    }
+
+    public void flushLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush segment log", e);
+        }
+    }
+
+    public void truncateLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate segment log", e);
+        }
+    }
+
+    public void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close segment log", e);
+        } finally {
+            log = null;
+        }
+    }
+
+    public SegmentLog getLog() {
+        return log;
+    }
+
+    public SegmentStore getStore() {
+        return store;
+    }
+
+    public void setStore(SegmentStore store) {
+        replaceStore(store);
+    }
+
+    // The old store's native rows and mapping are released here rather than left to the GC
+    private void replaceStore(SegmentStore next) {
+        SegmentStore previous = store;
+        store = next;
+        if (previous != null && previous != next) {
+            previous.close();
+        }
     }
 
     public List<SearchResult> search(Embedding query, int maxResults, double minScore) {
-        return store.findRelevant(query, maxResults, minScore).stream()
+        return search(query, maxResults, minScore, SearchFilter.NONE);
+    }
+
+    // The filter is resolved to a row bitmap from the catalog, so only matching rows are scored.
+    // With two-stage search on, that bitmap is narrowed to the documents with the nearest centroids.
+    public List<SearchResult> search(Embedding query, int maxResults, double minScore, SearchFilter filter) {
+        BitSet rows = null;
+        boolean filtered = filter != null && !filter.isEmpty();
+        DocumentCatalog catalog = store.getCatalog();
+        int coarse = indexConfig.coarseDocuments();
+        if (coarse > 0 && catalog.size() > coarse) {
+            rows = catalog.nearestDocumentRows(VectorMath.normalize(query.vector()), coarse, filtered ? filter : null);
+        } else if (filtered) {
+            rows = catalog.rowsMatching(filter);
+        }
+        if (rows != null && rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return store.search(query, maxResults, minScore, rows).stream()
                 .map(m -> new SearchResult(m.embeddingId(), m.embedded(), m.score()))
                 .collect(Collectors.toList());
     }
 
+    // BM25 keyword search, with the same filter semantics as search(); empty when the config
+    // turns lexical search off, and weak hits below its minimum share are dropped
+    public List<SearchResult> searchLexical(String query, int maxResults, SearchFilter filter) {
+        double minShare = indexConfig.lexicalMinShare();
+        if (minShare < 0) {
+            return new ArrayList<>();
+        }
+        BitSet rows = null;
+        if (filter != null && !filter.isEmpty()) {
+            rows = store.getCatalog().rowsMatching(filter);
+            if (rows.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        List<SearchResult> results = new ArrayList<>();
+        for (ScoredRow hit : store.getLexicalIndex().search(query, maxResults, minShare, rows, store)) {
+            results.add(new SearchResult(store.id(hit.row()), store.segment(hit.row()), hit.score()));
+        }
+        return results;
+    }
+
     public EmbeddingModel getEmbeddingModel() {
         return embeddingModel;
     }
@@ -115,6 +351,7 @@ public List<String> retrieveDocuments() throws JsonProcessingException {
 
         public String getId() { return id; }
         public String getText() { return segment.text(); }
+        public TextSegment getSegment() { return segment; }
         public double getScore() { return score; }
 
         @Override
@@ -3,10 +3,42 @@ package com.main.AI.parser;
 import com.main.AI.RagService;
 
 import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 public interface DocumentParseStrategy {
 
-    void parse(byte[] fileBytes, String documentId, RagService ragService) throws IOException;
+    /** How text extracted by a strategy is cut into chunks. */
+    enum Chunking {
+        /** Paragraphs and sentences up to a character limit, the original splitter. */
+        CHARACTERS,
+        /** Sentences packed to the embedding model's token window, overlapping. */
+        TOKENS
+    }
+
+    default Chunking chunking() {
+        return Chunking.CHARACTERS;
+    }
+
+    /** Plain text of the document; the ingestion pipeline chunks and embeds it afterwards. */
+    String extractText(byte[] fileBytes) throws IOException;
+
+    /**
+     * Hands the text to {@code pieces} in document order as it is extracted, so chunking and
+     * embedding can start before the whole document is read. The pieces concatenate to
+     * {@link #extractText(byte[])}; formats that can't be read incrementally pass it in one piece.
+     */
+    default void extractText(byte[] fileBytes, Consumer<String> pieces) throws IOException {
+        pieces.accept(extractText(fileBytes));
+    }
+
+    default void parse(byte[] fileBytes, String documentId, RagService ragService) throws IOException {
+        Objects.requireNonNull(fileBytes, "fileBytes cannot be null");
+        Objects.requireNonNull(documentId, "documentId cannot be null");
+        Objects.requireNonNull(ragService, "ragService cannot be null");
+
+        ragService.addDocument(documentId, extractText(fileBytes));
+    }
 }
 
 
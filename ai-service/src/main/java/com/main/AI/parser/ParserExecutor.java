@@ -0,0 +1,63 @@
+package com.main.AI.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool for the CPU-heavy part of parsing, such as extracting PDF page ranges, shared
+ * by every upload in progress. {@code threads} is normally the core count. When the queue of
+ * {@code queueCapacity} tasks is full the submitting thread runs the task itself, which slows
+ * the uploads feeding it rather than failing them.
+ */
+public final class ParserExecutor extends ThreadPoolExecutor {
+
+    private final AtomicLong ranByCaller = new AtomicLong();
+
+    public ParserExecutor(int threads, int queueCapacity) {
+        super(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)));
+        AtomicInteger count = new AtomicInteger();
+        setThreadFactory(task -> {
+            Thread thread = new Worker(this, task, "parser-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        setRejectedExecutionHandler((task, executor) -> {
+            if (!executor.isShutdown()) {
+                ranByCaller.incrementAndGet();
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Whether the calling thread is one of this pool's; work it would hand to the pool and then
+     * wait for must run in place instead, or every thread could end up waiting on the queue.
+     */
+    public boolean ownsCurrentThread() {
+        return Thread.currentThread() instanceof Worker worker && worker.owner == this;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", getMaximumPoolSize());
+        stats.put("running", getActiveCount());
+        stats.put("queued", getQueue().size());
+        stats.put("completed", getCompletedTaskCount());
+        stats.put("ranByCaller", ranByCaller.get());
+        return stats;
+    }
+
+    private static final class Worker extends Thread {
+        private final ParserExecutor owner;
+
+        Worker(ParserExecutor owner, Runnable task, String name) {
+            super(task, name);
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.main.AI.parser;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable lookup from file extension or MIME type to the {@link DocumentParseStrategy} that
+ * reads it. Strategies are registered once and shared by every upload, so they must keep no
+ * per-document state; any number of threads may look up and parse at once.
+ *
+ * {@link #with} returns a new registry and leaves this one unchanged.
+ */
+public final class ParserRegistry {
+
+    private final Map<String, DocumentParseStrategy> byExtension;
+    private final Map<String, DocumentParseStrategy> byMimeType;
+
+    private ParserRegistry(Map<String, DocumentParseStrategy> byExtension,
+                           Map<String, DocumentParseStrategy> byMimeType) {
+        this.byExtension = Map.copyOf(byExtension);
+        this.byMimeType = Map.copyOf(byMimeType);
+    }
+
+    public static ParserRegistry empty() {
+        return new ParserRegistry(Map.of(), Map.of());
+    }
+
+    /** This registry plus {@code strategy} for the given extensions (without the dot) and MIME types. */
+    public ParserRegistry with(DocumentParseStrategy strategy, Set<String> extensions, Set<String> mimeTypes) {
+        Map<String, DocumentParseStrategy> extensionsNext = new HashMap<>(byExtension);
+        for (String extension : extensions) {
+            extensionsNext.put(extension.toLowerCase(Locale.ROOT), strategy);
+        }
+        Map<String, DocumentParseStrategy> mimeTypesNext = new HashMap<>(byMimeType);
+        for (String mimeType : mimeTypes) {
+            mimeTypesNext.put(mimeType.toLowerCase(Locale.ROOT), strategy);
+        }
+        return new ParserRegistry(extensionsNext, mimeTypesNext);
+    }
+
+    /**
+     * The strategy for a file, chosen by the extension of {@code fileName} and, failing that,
+     * by {@code contentType} (may be null); null if neither is supported.
+     */
+    public DocumentParseStrategy find(String fileName, String contentType) {
+        if (fileName != null) {
+            int dot = fileName.lastIndexOf('.');
+            if (dot >= 0) {
+                DocumentParseStrategy strategy = byExtension.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+                if (strategy != null) {
+                    return strategy;
+                }
+            }
+        }
+        if (contentType != null) {
+            int parameters = contentType.indexOf(';');
+            String mimeType = (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim();
+            return byMimeType.get(mimeType.toLowerCase(Locale.ROOT));
+        }
+        return null;
+    }
+
+    public Set<String> extensions() {
+        return new TreeSet<>(byExtension.keySet());
+    }
+}
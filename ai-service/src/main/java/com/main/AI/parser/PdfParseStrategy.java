@@ -1,32 +1,137 @@
 package com.main.AI.parser;
 
-import com.main.AI.RagService;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Parses PDF documents by extracting their textual content.
+ *
+ * Long documents are extracted in page ranges, with the ranges after the first running on a
+ * {@link ParserExecutor}. A PDDocument isn't thread-safe and resolves objects lazily as pages
+ * are read, so sharing one would serialize the text extraction that makes up most of the
+ * cost; each range loads its own copy instead, which only parses the file's object structure.
+ * To bound that, ranges are at least {@code pagesPerTask} pages and grow with the document so
+ * there are at most two per pool thread besides the first, and no more ranges than the pool
+ * has threads are in flight at once. Ranges are handed on in page order, so the text of the whole document is
+ * never held at once.
+ *
+ * Holds no per-document state, so one instance serves every upload.
  */
 public final class PdfParseStrategy implements DocumentParseStrategy {
 
+    public static final int DEFAULT_PAGES_PER_TASK = 16;
+
+    // For instances built without a pool of their own
+    private static final class DefaultPool {
+        static final ParserExecutor INSTANCE = new ParserExecutor(Runtime.getRuntime().availableProcessors(), 64);
+    }
+
+    private final int pagesPerTask;
+    private final Chunking chunking;
+    private final ParserExecutor executor;
+
     public PdfParseStrategy() {
+        this(DEFAULT_PAGES_PER_TASK);
+    }
+
+    public PdfParseStrategy(int pagesPerTask) {
+        this(pagesPerTask, Chunking.CHARACTERS, null);
+    }
+
+    /** {@code executor} runs the page ranges; null uses a pool shared by all such instances. */
+    public PdfParseStrategy(int pagesPerTask, Chunking chunking, ParserExecutor executor) {
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.chunking = chunking;
+        this.executor = executor;
+    }
+
+    @Override
+    public Chunking chunking() {
+        return chunking;
     }
 
     @Override
-    public void parse(byte[] fileBytes, String documentId, RagService ragService) throws IOException {
+    public String extractText(byte[] fileBytes) throws IOException {
+        StringBuilder text = new StringBuilder();
+        extractText(fileBytes, text::append);
+        return text.toString();
+    }
+
+    @Override
+    public void extractText(byte[] fileBytes, Consumer<String> pages) throws IOException {
         Objects.requireNonNull(fileBytes, "fileBytes cannot be null");
-        Objects.requireNonNull(documentId, "documentId cannot be null");
-        Objects.requireNonNull(ragService, "ragService cannot be null");
 
         try (PDDocument document = PDDocument.load(fileBytes)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String extractedText = stripper.getText(document);
-            ragService.addDocument(documentId, extractedText);
+            int pageCount = document.getNumberOfPages();
+            ParserExecutor pool = executor != null ? executor : DefaultPool.INSTANCE;
+            int threads = pool.getMaximumPoolSize();
+            // The pool's ranges plus the first one: a document is loaded at most 2 * threads + 1 times
+            int rangePages = Math.max(pagesPerTask, Math.ceilDiv(pageCount, 2 * threads + 1));
+            if (pageCount <= rangePages || pool.ownsCurrentThread()) {
+                pages.accept(new PDFTextStripper().getText(document));
+                return;
+            }
+
+            Deque<Future<String>> pending = new ArrayDeque<>();
+            int nextPage = rangePages + 1;
+            try {
+                while (nextPage <= pageCount && pending.size() < threads) {
+                    pending.addLast(submitRange(pool, fileBytes, nextPage, rangePages, pageCount));
+                    nextPage += rangePages;
+                }
+                // The first range comes from the copy already loaded, while the pool works ahead
+                pages.accept(extractRange(document, 1, rangePages));
+                while (!pending.isEmpty()) {
+                    pages.accept(await(pending.removeFirst()));
+                    if (nextPage <= pageCount) {
+                        pending.addLast(submitRange(pool, fileBytes, nextPage, rangePages, pageCount));
+                        nextPage += rangePages;
+                    }
+                }
+            } finally {
+                for (Future<String> future : pending) {
+                    future.cancel(true);
+                }
+            }
         }
     }
-}
 
+    private static Future<String> submitRange(ParserExecutor pool, byte[] fileBytes, int startPage,
+                                              int rangePages, int pageCount) {
+        int endPage = Math.min(startPage + rangePages - 1, pageCount);
+        return pool.submit(() -> {
+            try (PDDocument copy = PDDocument.load(fileBytes)) {
+                return extractRange(copy, startPage, endPage);
+            }
+        });
+    }
 
+    private static String extractRange(PDDocument document, int startPage, int endPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        return stripper.getText(document);
+    }
+
+    private static String await(Future<String> range) throws IOException {
+        try {
+            return range.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting PDF pages", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Failed to extract PDF pages", e.getCause());
+        }
+    }
+}
@@ -1,28 +1,33 @@
 package com.main.AI.parser;
 
-import com.main.AI.RagService;
-
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
- * Parses plain-text based sources (.txt, .md, etc.).
+ * Parses plain-text based sources (.txt, .md, etc.). Stateless, so one instance serves every upload.
  */
 public final class TxtParseStrategy implements DocumentParseStrategy {
 
+    private final Chunking chunking;
 
     public TxtParseStrategy() {
+        this(Chunking.CHARACTERS);
+    }
+
+    public TxtParseStrategy(Chunking chunking) {
+        this.chunking = chunking;
+    }
+
+    @Override
+    public Chunking chunking() {
+        return chunking;
     }
 
     @Override
-    public void parse(byte[] fileBytes, String documentId, RagService ragService) throws IOException {
+    public String extractText(byte[] fileBytes) {
         Objects.requireNonNull(fileBytes, "fileBytes cannot be null");
-        Objects.requireNonNull(documentId, "documentId cannot be null");
-        Objects.requireNonNull(ragService, "ragService cannot be null");
 
-        String content = new String(fileBytes, StandardCharsets.UTF_8);
-        ragService.addDocument(documentId, content);
+        return new String(fileBytes, StandardCharsets.UTF_8);
     }
 }
 
@@ -0,0 +1,349 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compact binary layout for a tenant's vector store, designed to be memory-mapped.
+ *
+ * <pre>
+ * header   64 bytes   magic, version, dimension, count, vector/table/data offsets, stamp, flags
+ * vectors  count * dimension float32, row-major, each row of unit length
+ * table    (count + 1) int64 offsets into the data block, one per record plus an end marker
+ * data     one record per row: id, text and metadata as length-prefixed UTF-8
+ * </pre>
+ *
+ * With {@link #FLAG_COMPRESSED_TEXT} set, the text and metadata following each id are stored as
+ * {@code [int rawLength][int storedLength][bytes]}, deflated unless that wouldn't save space.
+ *
+ * All numbers are little-endian. Opening a file maps it and reads nothing but the header;
+ * vectors are searched in place and records are decoded on demand.
+ * Version 1 files stored vectors as given rather than normalized; they are still readable.
+ * Versions before 3 have no flags.
+ */
+public final class BinaryStoreFormat {
+
+    public static final int MAGIC = 0x53425653; // "SBVS"
+    public static final int VERSION = 3;
+    public static final int FLAG_COMPRESSED_TEXT = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_UUID = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_DOUBLE = 5;
+
+    private BinaryStoreFormat() {
+    }
+
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return false;
+            }
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            return header.getInt(0) == MAGIC;
+        }
+    }
+
+    public static long write(Path path, SegmentStore store) throws IOException {
+        return write(path, store, false);
+    }
+
+    /**
+     * Writes the live rows of {@code store} to {@code path}, replacing it atomically, with
+     * their text deflated if {@code compressText} is set.
+     * Rows keep their relative order. Returns the random stamp identifying this snapshot.
+     */
+    public static long write(Path path, SegmentStore store, boolean compressText) throws IOException {
+        int dimension = store.dimension();
+        int count = store.size();
+        long vectorOffset = HEADER_BYTES;
+        long tableOffset = vectorOffset + (long) count * dimension * Float.BYTES;
+        long dataOffset = tableOffset + (long) (count + 1) * Long.BYTES;
+        long stamp = ThreadLocalRandom.current().nextLong() | 1;
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(count)
+                    .putLong(vectorOffset).putLong(tableOffset).putLong(dataOffset).putLong(stamp)
+                    .putInt(compressText ? FLAG_COMPRESSED_TEXT : 0);
+            header.clear();
+            writeFully(channel, header, 0);
+
+            ByteBuffer table = ByteBuffer.allocate((count + 1) * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer vectors = ByteBuffer.allocate(Math.max(dimension, 1) * Float.BYTES * 256)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long vectorPos = vectorOffset;
+            long dataPos = 0;
+            int rows = store.rowCount();
+            for (int row = 0; row < rows; row++) {
+                if (store.isDeleted(row)) {
+                    continue;
+                }
+                if (vectors.remaining() < dimension * Float.BYTES) {
+                    vectors.flip();
+                    vectorPos += writeFully(channel, vectors, vectorPos);
+                    vectors.clear();
+                }
+                for (float v : store.vector(row)) {
+                    vectors.putFloat(v);
+                }
+
+                table.putLong(dataPos);
+                ByteBuffer record = encodeRecord(store.id(row), store.segment(row));
+                if (compressText) {
+                    record = compressBody(record);
+                }
+                dataPos += writeFully(channel, record, dataOffset + dataPos);
+            }
+            vectors.flip();
+            writeFully(channel, vectors, vectorPos);
+            table.putLong(dataPos);
+            table.flip();
+            writeFully(channel, table, tableOffset);
+            channel.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stamp;
+    }
+
+    /**
+     * Maps {@code path} read-only into its own arena, which {@link Snapshot#close()} closes to
+     * unmap the file. Files are limited to 2 GB, the size of a ByteBuffer view.
+     */
+    public static Snapshot open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            ByteBuffer buffer = file.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a binary vector store: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported vector store version " + version + " in " + path);
+            }
+            boolean compressed = version >= 3 && (buffer.getInt(48) & FLAG_COMPRESSED_TEXT) != 0;
+            return new MappedSnapshot(arena, file, buffer, version >= 2, compressed);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    static ByteBuffer encodeRecord(String id, TextSegment segment) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] textBytes = segment.text().getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> metadata = segment.metadata().toMap();
+
+        int size = Integer.BYTES + idBytes.length + Integer.BYTES + textBytes.length + Integer.BYTES;
+        byte[][] keys = new byte[metadata.size()][];
+        byte[][] values = new byte[metadata.size()][];
+        byte[] types = new byte[metadata.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            keys[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+            types[i] = typeOf(entry.getValue());
+            size += Integer.BYTES + keys[i].length + 1 + Integer.BYTES + values[i].length;
+            i++;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(idBytes.length).put(idBytes);
+        record.putInt(textBytes.length).put(textBytes);
+        record.putInt(keys.length);
+        for (i = 0; i < keys.length; i++) {
+            record.putInt(keys[i].length).put(keys[i]);
+            record.put(types[i]);
+            record.putInt(values[i].length).put(values[i]);
+        }
+        record.flip();
+        return record;
+    }
+
+    // Keeps the id readable in place and deflates the text and metadata after it
+    private static ByteBuffer compressBody(ByteBuffer record) {
+        int bodyStart = Integer.BYTES + record.getInt(0);
+        ByteBuffer body = record.slice(bodyStart, record.limit() - bodyStart);
+        byte[] deflated = SegmentBlob.deflate(body);
+        boolean smaller = deflated.length < body.remaining();
+        int storedLength = smaller ? deflated.length : body.remaining();
+        ByteBuffer out = ByteBuffer.allocate(bodyStart + 2 * Integer.BYTES + storedLength).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(record.slice(0, bodyStart)).putInt(body.remaining()).putInt(storedLength);
+        if (smaller) {
+            out.put(deflated);
+        } else {
+            out.put(body);
+        }
+        return out.flip();
+    }
+
+    /** Decodes the text and metadata of the record written by {@link #encodeRecord} at {@code pos}. */
+    static TextSegment readSegment(ByteBuffer data, int pos) {
+        return readBody(data, pos + Integer.BYTES + data.getInt(pos));
+    }
+
+    // Decodes the text and metadata that follow the id of a record
+    private static TextSegment readBody(ByteBuffer data, int pos) {
+        String text = readString(data, pos);
+        pos += Integer.BYTES + data.getInt(pos);
+
+        Metadata metadata = new Metadata();
+        int entries = data.getInt(pos);
+        pos += Integer.BYTES;
+        for (int i = 0; i < entries; i++) {
+            String key = readString(data, pos);
+            pos += Integer.BYTES + data.getInt(pos);
+            byte type = data.get(pos++);
+            String value = readString(data, pos);
+            pos += Integer.BYTES + data.getInt(pos);
+            switch (type) {
+                case TYPE_UUID -> metadata.put(key, UUID.fromString(value));
+                case TYPE_INTEGER -> metadata.put(key, Integer.parseInt(value));
+                case TYPE_LONG -> metadata.put(key, Long.parseLong(value));
+                case TYPE_FLOAT -> metadata.put(key, Float.parseFloat(value));
+                case TYPE_DOUBLE -> metadata.put(key, Double.parseDouble(value));
+                default -> metadata.put(key, value);
+            }
+        }
+        return new TextSegment(text, metadata);
+    }
+
+    /** Decodes a length-prefixed UTF-8 string; records start with their id, so this also reads ids. */
+    static String readString(ByteBuffer data, int pos) {
+        byte[] bytes = new byte[data.getInt(pos)];
+        data.get(pos + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof UUID) return TYPE_UUID;
+        if (value instanceof Integer) return TYPE_INTEGER;
+        if (value instanceof Long) return TYPE_LONG;
+        if (value instanceof Float) return TYPE_FLOAT;
+        if (value instanceof Double) return TYPE_DOUBLE;
+        return TYPE_STRING;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static final class MappedSnapshot implements Snapshot {
+
+        private final Arena arena;
+        private final MemorySegment file;
+        private final long mappedBytes;
+        private final int dimension;
+        private final int size;
+        private final long stamp;
+        private final LongBuffer table;
+        private final ByteBuffer data;
+        private final MappedVectorBlock vectors;
+        private final boolean compressed;
+
+        MappedSnapshot(Arena arena, MemorySegment file, ByteBuffer buffer, boolean normalized, boolean compressed) {
+            this.arena = arena;
+            this.file = file;
+            this.compressed = compressed;
+            this.mappedBytes = file.byteSize();
+            this.dimension = buffer.getInt(8);
+            this.size = buffer.getInt(12);
+            int vectorOffset = (int) buffer.getLong(16);
+            int tableOffset = (int) buffer.getLong(24);
+            int dataOffset = (int) buffer.getLong(32);
+            this.stamp = buffer.getLong(40);
+
+            this.vectors = new MappedVectorBlock(
+                    file.asSlice(vectorOffset, tableOffset - vectorOffset),
+                    dimension, size, normalized);
+            this.table = buffer.slice(tableOffset, dataOffset - tableOffset)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            this.data = buffer.slice(dataOffset, buffer.limit() - dataOffset)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            OffHeapMemory.mapped(mappedBytes);
+        }
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public int dimension() { return dimension; }
+
+        @Override
+        public long stamp() { return stamp; }
+
+        @Override
+        public VectorBlock vectors() { return vectors; }
+
+        @Override
+        public String id(int row) {
+            return readString(data, (int) table.get(row));
+        }
+
+        @Override
+        public TextSegment segment(int row) {
+            int pos = (int) table.get(row);
+            if (!compressed) {
+                return readSegment(data, pos);
+            }
+            int bodyPos = pos + Integer.BYTES + data.getInt(pos);
+            int rawLength = data.getInt(bodyPos);
+            int storedLength = data.getInt(bodyPos + Integer.BYTES);
+            int storedPos = bodyPos + 2 * Integer.BYTES;
+            return storedLength == rawLength
+                    ? readBody(data, storedPos)
+                    : readBody(SegmentBlob.inflate(data, storedPos, storedLength, rawLength), 0);
+        }
+
+        @Override
+        public synchronized void makeResident() {
+            if (arena.scope().isAlive()) {
+                file.load();
+            }
+        }
+
+        @Override
+        public synchronized void releaseResident() {
+            if (arena.scope().isAlive()) {
+                file.unload();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (arena.scope().isAlive()) {
+                arena.close();
+                OffHeapMemory.unmapped(mappedBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures how much two-stage search (nearest document centroids, then their chunks) loses
+ * against exact search over every chunk, to pick {@code COARSE_TOP_DOCUMENTS} for a store.
+ *
+ * Run against a snapshot: {@code java com.main.AI.store.CentroidRecall <id>.vdb [k] [queries]}.
+ * The queries are the vectors of up to {@code queries} live rows spread evenly over the store;
+ * for each candidate document count it prints recall@k and the share of rows scored.
+ */
+public final class CentroidRecall {
+
+    private static final int[] DOCUMENT_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    private CentroidRecall() {
+    }
+
+    /** Fraction of the exact top {@code k} that two-stage search over {@code documents} documents also returns. */
+    public static double recall(SegmentStore store, List<float[]> queries, int k, int documents) {
+        DocumentCatalog catalog = store.getCatalog();
+        int found = 0;
+        int expected = 0;
+        for (float[] query : queries) {
+            Set<String> exact = ids(store.search(Embedding.from(query), k, 0, null));
+            BitSet rows = catalog.nearestDocumentRows(VectorMath.normalize(query), documents, null);
+            Set<String> twoStage = ids(store.search(Embedding.from(query), k, 0, rows));
+            twoStage.retainAll(exact);
+            found += twoStage.size();
+            expected += exact.size();
+        }
+        return expected == 0 ? 1.0 : (double) found / expected;
+    }
+
+    private static Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+        Set<String> ids = new HashSet<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            ids.add(match.embeddingId());
+        }
+        return ids;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: CentroidRecall <snapshot.vdb> [k] [queries]");
+            return;
+        }
+        Path path = Path.of(args[0]);
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int sample = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        SegmentStore store = new SegmentStore(BinaryStoreFormat.open(path));
+        DocumentCatalog catalog = store.getCatalog();
+        List<float[]> queries = new ArrayList<>();
+        int stride = Math.max(1, store.rowCount() / Math.max(sample, 1));
+        for (int row = 0; row < store.rowCount() && queries.size() < sample; row += stride) {
+            if (!store.isDeleted(row)) {
+                queries.add(store.vector(row));
+            }
+        }
+        System.out.printf("%s: %d chunks in %d documents, %d queries, k=%d%n",
+                path.getFileName(), store.size(), catalog.size(), queries.size(), k);
+
+        for (int documents : DOCUMENT_COUNTS) {
+            if (documents >= catalog.size()) {
+                break;
+            }
+            long scored = 0;
+            for (float[] query : queries) {
+                scored += catalog.nearestDocumentRows(VectorMath.normalize(query), documents, null).cardinality();
+            }
+            long start = System.nanoTime();
+            double recall = recall(store, queries, k, documents);
+            System.out.printf("top %3d documents: recall@%d %.3f, %.1f%% of rows scored, %d ms%n",
+                    documents, k, recall, 100.0 * scored / Math.max(1L, (long) queries.size() * store.size()),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-tenant list of uploaded documents, keyed by the {@code docId} metadata of their chunks.
+ *
+ * The {@link SegmentStore} reports every row it adds and removes, so the catalog stays
+ * current without rescanning the store, and listing documents costs O(documents).
+ * Each document also keeps a bitmap of its rows, which is how filtered searches pick the
+ * rows to score, and the sum of its unit chunk vectors, whose direction is the document's
+ * centroid for two-stage search.
+ * It is written next to each snapshot ({@code <id>.docs}) tagged with the snapshot's stamp;
+ * when that file is missing or stale it is rebuilt from the rows once.
+ */
+public class DocumentCatalog {
+
+    public static final String DOC_ID = "docId";
+    public static final String UPLOADED_AT = "uploadedAt";
+
+    private static final int MAGIC = 0x53424443; // "SBDC"
+    private static final int VERSION = 3;
+
+    /** One document: its chunk ids in insertion order, the UTF-8 size of their text and when it was uploaded. */
+    public static final class Document {
+        private final String docId;
+        private final Set<String> chunkIds = new LinkedHashSet<>();
+        private final BitSet rows = new BitSet();
+        private float[] vectorSum;
+        private long bytes;
+        private long uploadedAt;
+
+        Document(String docId) {
+            this.docId = docId;
+        }
+
+        public String docId() { return docId; }
+        public Set<String> chunkIds() { return chunkIds; }
+        public int chunkCount() { return chunkIds.size(); }
+        public long bytes() { return bytes; }
+        public long uploadedAt() { return uploadedAt; }
+        public boolean containsRow(int row) { return rows.get(row); }
+        BitSet rows() { return rows; }
+
+        /** Unit-length mean direction of the document's chunks. */
+        public float[] centroid() {
+            return vectorSum == null ? new float[0] : VectorMath.normalize(vectorSum);
+        }
+
+        private void addVector(float[] vector, int sign) {
+            if (vectorSum == null) {
+                vectorSum = new float[vector.length];
+            }
+            for (int i = 0; i < vector.length; i++) {
+                vectorSum[i] += sign * vector[i];
+            }
+        }
+    }
+
+    private final Map<String, Document> documents = new LinkedHashMap<>();
+
+    /** Builds the catalog of the live rows of {@code store} by reading each row's metadata. */
+    public static DocumentCatalog scan(SegmentStore store) {
+        DocumentCatalog catalog = new DocumentCatalog();
+        for (int row = 0; row < store.rowCount(); row++) {
+            if (!store.isDeleted(row)) {
+                catalog.added(row, store.id(row), store.segment(row), store.vector(row));
+            }
+        }
+        return catalog;
+    }
+
+    /** {@code vector} is the row's unit-length vector. */
+    public void added(int row, String chunkId, TextSegment segment, float[] vector) {
+        String docId = segment.metadata().getString(DOC_ID);
+        if (docId == null) {
+            return;
+        }
+        Document document = documents.computeIfAbsent(docId, Document::new);
+        if (document.chunkIds.add(chunkId)) {
+            document.bytes += segment.text().getBytes(StandardCharsets.UTF_8).length;
+            document.addVector(vector, 1);
+        }
+        document.rows.set(row);
+        Long uploadedAt = segment.metadata().getLong(UPLOADED_AT);
+        if (uploadedAt != null && (document.uploadedAt == 0 || uploadedAt < document.uploadedAt)) {
+            document.uploadedAt = uploadedAt;
+        }
+    }
+
+    public void removed(int row, String chunkId, TextSegment segment, float[] vector) {
+        String docId = segment.metadata().getString(DOC_ID);
+        Document document = docId == null ? null : documents.get(docId);
+        if (document == null || !document.chunkIds.remove(chunkId)) {
+            return;
+        }
+        document.rows.clear(row);
+        document.bytes -= segment.text().getBytes(StandardCharsets.UTF_8).length;
+        document.addVector(vector, -1);
+        if (document.chunkIds.isEmpty()) {
+            documents.remove(docId);
+        }
+    }
+
+    public void cleared() {
+        documents.clear();
+    }
+
+    public List<String> documentIds() {
+        return new ArrayList<>(documents.keySet());
+    }
+
+    public Document get(String docId) {
+        return documents.get(docId);
+    }
+
+    public List<Document> documents() {
+        return new ArrayList<>(documents.values());
+    }
+
+    /** Rows of the documents {@code filter} selects; empty if it selects none. */
+    public BitSet rowsMatching(SearchFilter filter) {
+        BitSet rows = new BitSet();
+        if (filter.docIds() != null) {
+            for (String docId : filter.docIds()) {
+                Document document = documents.get(docId);
+                if (document != null && filter.acceptsUploadTime(document.uploadedAt)) {
+                    rows.or(document.rows);
+                }
+            }
+        } else {
+            for (Document document : documents.values()) {
+                if (filter.acceptsUploadTime(document.uploadedAt)) {
+                    rows.or(document.rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * First stage of two-stage search: rows of the {@code n} documents whose centroids are
+     * closest to {@code unitQuery}, among those {@code filter} selects (all if null).
+     */
+    public BitSet nearestDocumentRows(float[] unitQuery, int n, SearchFilter filter) {
+        ScoredHeap nearest = new ScoredHeap(n);
+        List<Document> candidates = new ArrayList<>(documents.values());
+        for (int i = 0; i < candidates.size(); i++) {
+            Document document = candidates.get(i);
+            if (filter != null && ((filter.docIds() != null && !filter.docIds().contains(document.docId))
+                    || !filter.acceptsUploadTime(document.uploadedAt))) {
+                continue;
+            }
+            float[] centroid = document.centroid();
+            if (centroid.length == unitQuery.length) {
+                nearest.offer(VectorMath.dot(centroid, 0, unitQuery, centroid.length), i, n);
+            }
+        }
+        BitSet rows = new BitSet();
+        while (!nearest.isEmpty()) {
+            rows.or(candidates.get(nearest.topId()).rows);
+            nearest.pop();
+        }
+        return rows;
+    }
+
+    /** Where the catalog of the snapshot at {@code snapshotPath} is persisted. */
+    public static Path catalogPath(Path snapshotPath) {
+        String name = snapshotPath.getFileName().toString();
+        String base = name.endsWith(".vdb") ? name.substring(0, name.length() - ".vdb".length()) : name;
+        return snapshotPath.resolveSibling(base + ".docs");
+    }
+
+    /**
+     * Writes the catalog of the live rows of {@code store}, with rows renumbered the way
+     * {@link BinaryStoreFormat#write} numbers them, tagged with the stamp of that snapshot.
+     */
+    public void write(Path path, long snapshotStamp, SegmentStore store) throws IOException {
+        int[] renumbered = new int[store.rowCount()];
+        int live = 0;
+        for (int row = 0; row < renumbered.length; row++) {
+            renumbered[row] = store.isDeleted(row) ? -1 : live++;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotStamp);
+            out.writeInt(documents.size());
+            for (Document document : documents.values()) {
+                out.writeUTF(document.docId);
+                out.writeLong(document.uploadedAt);
+                out.writeLong(document.bytes);
+                out.writeInt(document.chunkIds.size());
+                for (String chunkId : document.chunkIds) {
+                    out.writeUTF(chunkId);
+                }
+                float[] sum = document.vectorSum == null ? new float[0] : document.vectorSum;
+                out.writeInt(sum.length);
+                for (float v : sum) {
+                    out.writeFloat(v);
+                }
+                out.writeInt(document.rows.cardinality());
+                for (int row = document.rows.nextSetBit(0); row >= 0; row = document.rows.nextSetBit(row + 1)) {
+                    out.writeInt(renumbered[row]);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads a catalog written for exactly this snapshot, or returns null if it doesn't match. */
+    public static DocumentCatalog read(Path path, long snapshotStamp) throws IOException {
+        if (snapshotStamp == 0 || !Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != snapshotStamp) {
+                return null;
+            }
+            DocumentCatalog catalog = new DocumentCatalog();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Document document = new Document(in.readUTF());
+                document.uploadedAt = in.readLong();
+                document.bytes = in.readLong();
+                int chunks = in.readInt();
+                for (int c = 0; c < chunks; c++) {
+                    document.chunkIds.add(in.readUTF());
+                }
+                int dimension = in.readInt();
+                if (dimension > 0) {
+                    document.vectorSum = new float[dimension];
+                    for (int d = 0; d < dimension; d++) {
+                        document.vectorSum[d] = in.readFloat();
+                    }
+                }
+                int rows = in.readInt();
+                for (int r = 0; r < rows; r++) {
+                    document.rows.set(in.readInt());
+                }
+                catalog.documents.put(document.docId, document);
+            }
+            return catalog;
+        }
+    }
+}
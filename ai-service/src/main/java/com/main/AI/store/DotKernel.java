@@ -0,0 +1,19 @@
+package com.main.AI.store;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Dot product of a stored row with a query vector; see {@link VectorMath} for how one is picked.
+ */
+interface DotKernel {
+
+    String name();
+
+    float dot(float[] rows, int offset, float[] query, int length);
+
+    /** {@code byteOffset} addresses little-endian float32 values. */
+    float dot(MemorySegment rows, long byteOffset, float[] query, int length);
+
+    /** Dot product of int8 codes with a float query; the caller applies the row's scale. */
+    float dot(byte[] codes, int offset, float[] query, int length);
+}
@@ -0,0 +1,158 @@
+package com.main.AI.store;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exact search: scores every live row of the store, a block of rows at a time,
+ * with the dot-product kernel picked by {@link VectorMath}.
+ *
+ * Stores of at least {@code parallelMinRows} rows are split into shards of {@code shardRows}
+ * consecutive rows that are scanned as fork-join tasks on the common pool, each keeping its
+ * own top {@code maxResults}; the shard results are merged pairwise as the tasks join.
+ * Smaller stores, and indexes built with {@code shardRows == 0}, scan on the calling thread.
+ */
+public class FlatIndex implements VectorIndex {
+
+    // Rows scored per pass; keeps the score buffer in cache
+    private static final int BATCH_ROWS = 1024;
+
+    private final SegmentStore store;
+    private final int shardRows;
+    private final int parallelMinRows;
+
+    public FlatIndex(SegmentStore store) {
+        this(store, 0, 0);
+    }
+
+    public FlatIndex(SegmentStore store, int shardRows, int parallelMinRows) {
+        this.store = store;
+        this.shardRows = shardRows;
+        this.parallelMinRows = parallelMinRows;
+    }
+
+    @Override
+    public void added(int row) {
+    }
+
+    @Override
+    public void removed(int row) {
+    }
+
+    @Override
+    public void cleared() {
+    }
+
+    @Override
+    public List<ScoredRow> search(float[] query, int maxResults, double minScore, BitSet filter) {
+        float[] unitQuery = VectorMath.normalize(query);
+        int rows = store.rowCount();
+        int candidates = filter == null ? rows : filter.cardinality();
+        if (shardRows <= 0 || candidates < Math.max(parallelMinRows, 2 * shardRows)) {
+            return drain(scan(store, unitQuery, maxResults, minScore, filter, 0, rows));
+        }
+        return drain(ForkJoinPool.commonPool().invoke(
+                new ShardSearch(store, unitQuery, maxResults, minScore, filter, 0, rows, shardRows)));
+    }
+
+    // Top maxResults of rows [from, to), or of those set in filter if it isn't null
+    private static ScoredHeap scan(SegmentStore store, float[] unitQuery, int maxResults, double minScore,
+                                   BitSet filter, int from, int to) {
+        ScoredHeap best = new ScoredHeap(maxResults);
+        if (filter != null) {
+            for (int row = filter.nextSetBit(from); row >= 0 && row < to; row = filter.nextSetBit(row + 1)) {
+                if (store.isDeleted(row)) {
+                    continue;
+                }
+                double score = (store.similarity(row, unitQuery) + 1) / 2;
+                if (score >= minScore) {
+                    best.offer(score, row, maxResults);
+                }
+            }
+            return best;
+        }
+        float[] scores = new float[Math.max(0, Math.min(to - from, BATCH_ROWS))];
+        for (int start = from; start < to; start += BATCH_ROWS) {
+            int end = Math.min(to, start + BATCH_ROWS);
+            store.similarities(unitQuery, start, end, scores);
+            for (int row = start; row < end; row++) {
+                double score = (scores[row - start] + 1) / 2.0;
+                if (score >= minScore && !store.isDeleted(row)) {
+                    best.offer(score, row, maxResults);
+                }
+            }
+        }
+        return best;
+    }
+
+    // Splits its row range in halves on shard boundaries until one shard is left, then scans it
+    private static final class ShardSearch extends RecursiveTask<ScoredHeap> {
+        private final SegmentStore store;
+        private final float[] unitQuery;
+        private final int maxResults;
+        private final double minScore;
+        private final BitSet filter;
+        private final int from;
+        private final int to;
+        private final int shardRows;
+
+        ShardSearch(SegmentStore store, float[] unitQuery, int maxResults, double minScore,
+                    BitSet filter, int from, int to, int shardRows) {
+            this.store = store;
+            this.unitQuery = unitQuery;
+            this.maxResults = maxResults;
+            this.minScore = minScore;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.shardRows = shardRows;
+        }
+
+        @Override
+        protected ScoredHeap compute() {
+            int shards = (to - from + shardRows - 1) / shardRows;
+            if (shards <= 1) {
+                return scan(store, unitQuery, maxResults, minScore, filter, from, to);
+            }
+            int mid = from + (shards / 2) * shardRows;
+            ShardSearch left = new ShardSearch(store, unitQuery, maxResults, minScore, filter, from, mid, shardRows);
+            left.fork();
+            ScoredHeap right = new ShardSearch(store, unitQuery, maxResults, minScore, filter, mid, to, shardRows).compute();
+            ScoredHeap merged = left.join();
+            while (!right.isEmpty()) {
+                merged.offer(right.topScore(), right.topId(), maxResults);
+                right.pop();
+            }
+            return merged;
+        }
+    }
+
+    // Exact scores for just the given rows, for searches filtered down to a few documents
+    static List<ScoredRow> searchRows(SegmentStore store, float[] unitQuery, int maxResults,
+                                      double minScore, BitSet rows) {
+        ScoredHeap best = new ScoredHeap(maxResults);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (store.isDeleted(row)) {
+                continue;
+            }
+            double score = (store.similarity(row, unitQuery) + 1) / 2;
+            if (score >= minScore) {
+                best.offer(score, row, maxResults);
+            }
+        }
+        return drain(best);
+    }
+
+    // Empties a min-heap of (score, row) into a best-first list
+    static List<ScoredRow> drain(ScoredHeap heap) {
+        ScoredRow[] rows = new ScoredRow[heap.size()];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = new ScoredRow(heap.topId(), heap.topScore());
+            heap.pop();
+        }
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,319 @@
+package com.main.AI.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin) for approximate
+ * nearest-neighbour search over a {@link SegmentStore}.
+ *
+ * Nodes are store rows. Removed rows stay in the graph as waypoints and are only
+ * filtered out of results; they are dropped when the graph is written next to a new
+ * snapshot. Inserts happen under the tenant's write lock, searches may run concurrently.
+ */
+public class HnswIndex implements VectorIndex {
+
+    private static final int MAGIC = 0x5342484E; // "SBHN"
+    private static final int VERSION = 1;
+
+    private final SegmentStore store;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    // links[row][level] = {count, neighbour...}
+    private int[][][] links = new int[64][][];
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(SegmentStore store, int m, int efConstruction, int efSearch) {
+        validate(m, efConstruction, efSearch);
+        this.store = store;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    // Levels are drawn with multiplier 1 / ln(m), which is only finite and positive for m >= 2
+    static void validate(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        if (efConstruction <= 0) {
+            throw new IllegalArgumentException("efConstruction must be positive");
+        }
+        if (efSearch <= 0) {
+            throw new IllegalArgumentException("efSearch must be positive");
+        }
+    }
+
+    @Override
+    public void added(int row) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        ensureCapacity(row);
+        links[row] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[row][l] = new int[1 + (l == 0 ? maxM0 : m)];
+        }
+        if (entryPoint < 0) {
+            entryPoint = row;
+            maxLevel = level;
+            return;
+        }
+
+        float[] vector = store.vector(row);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vector, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<ScoredRow> candidates = FlatIndex.drain(searchLayer(vector, ep, efConstruction, l));
+            int limit = Math.min(m, candidates.size());
+            for (int i = 0; i < limit; i++) {
+                int neighbour = candidates.get(i).row();
+                link(row, neighbour, l, vector);
+                link(neighbour, row, l, null);
+            }
+            ep = candidates.get(0).row();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = row;
+        }
+    }
+
+    @Override
+    public void removed(int row) {
+        // Kept as a waypoint; search skips it
+    }
+
+    @Override
+    public void cleared() {
+        Arrays.fill(links, null);
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    @Override
+    public List<ScoredRow> search(float[] query, int maxResults, double minScore, BitSet filter) {
+        ScoredHeap best = new ScoredHeap(maxResults);
+        if (entryPoint < 0 || maxResults <= 0) {
+            return FlatIndex.drain(best);
+        }
+        float[] unitQuery = VectorMath.normalize(query);
+        if (filter != null) {
+            // A filter keeps a few documents; scanning their rows is exact and cheaper than
+            // walking a graph whose neighbourhoods mostly lie outside them
+            return FlatIndex.searchRows(store, unitQuery, maxResults, minScore, filter);
+        }
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(unitQuery, ep, l);
+        }
+        ScoredHeap found = searchLayer(unitQuery, ep, Math.max(efSearch, maxResults), 0);
+        while (!found.isEmpty()) {
+            int row = found.topId();
+            double score = (found.topScore() + 1) / 2;
+            found.pop();
+            if (!store.isDeleted(row) && score >= minScore) {
+                best.offer(score, row, maxResults);
+            }
+        }
+        return FlatIndex.drain(best);
+    }
+
+    /**
+     * Writes the graph restricted to live rows, renumbered the way {@link BinaryStoreFormat#write}
+     * numbers them, tagged with the stamp of that snapshot.
+     */
+    @Override
+    public void write(Path path, long snapshotStamp) throws IOException {
+        int rows = store.rowCount();
+        int[] renumbered = new int[rows];
+        int live = 0;
+        int newEntry = -1;
+        int newMaxLevel = -1;
+        for (int row = 0; row < rows; row++) {
+            if (store.isDeleted(row) || links[row] == null) {
+                renumbered[row] = -1;
+                continue;
+            }
+            renumbered[row] = live++;
+            if (links[row].length - 1 > newMaxLevel) {
+                newMaxLevel = links[row].length - 1;
+                newEntry = renumbered[row];
+            }
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotStamp);
+            out.writeInt(live);
+            out.writeInt(m);
+            out.writeInt(newEntry);
+            out.writeInt(newMaxLevel);
+            for (int row = 0; row < rows; row++) {
+                if (renumbered[row] < 0) {
+                    continue;
+                }
+                out.writeByte(links[row].length);
+                for (int[] level : links[row]) {
+                    int kept = 0;
+                    for (int i = 1; i <= level[0]; i++) {
+                        if (renumbered[level[i]] >= 0) kept++;
+                    }
+                    out.writeShort(kept);
+                    for (int i = 1; i <= level[0]; i++) {
+                        if (renumbered[level[i]] >= 0) out.writeInt(renumbered[level[i]]);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads a graph written for exactly this snapshot, or returns null if it doesn't match. */
+    static HnswIndex read(Path path, SegmentStore store, long snapshotStamp,
+                          int m, int efConstruction, int efSearch) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != snapshotStamp) {
+                return null;
+            }
+            int count = in.readInt();
+            if (count != store.rowCount() || in.readInt() != m) {
+                return null;
+            }
+            HnswIndex index = new HnswIndex(store, m, efConstruction, efSearch);
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            index.ensureCapacity(count);
+            for (int row = 0; row < count; row++) {
+                int levels = in.readByte();
+                index.links[row] = new int[levels][];
+                for (int l = 0; l < levels; l++) {
+                    int n = in.readShort();
+                    int[] level = new int[1 + Math.max(n, l == 0 ? index.maxM0 : m)];
+                    level[0] = n;
+                    for (int i = 1; i <= n; i++) {
+                        level[i] = in.readInt();
+                    }
+                    index.links[row][l] = level;
+                }
+            }
+            return index;
+        }
+    }
+
+    private int greedyClosest(float[] query, int ep, int level) {
+        double best = store.similarity(ep, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = levelOf(ep, level);
+            for (int i = 1; neighbours != null && i <= neighbours[0]; i++) {
+                double score = store.similarity(neighbours[i], query);
+                if (score > best) {
+                    best = score;
+                    ep = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    // Returns a min-heap of (cosine, row) holding the best ef rows reached from ep; query has unit length
+    private ScoredHeap searchLayer(float[] query, int ep, int ef, int level) {
+        BitSet visited = new BitSet();
+        visited.set(ep);
+        double epScore = store.similarity(ep, query);
+        ScoredHeap candidates = new ScoredHeap(ef);   // negated: best candidate on top
+        ScoredHeap results = new ScoredHeap(ef + 1);  // worst result on top
+        candidates.push(-epScore, ep);
+        results.push(epScore, ep);
+
+        while (!candidates.isEmpty()) {
+            double score = -candidates.topScore();
+            int current = candidates.topId();
+            candidates.pop();
+            if (results.size() >= ef && score < results.topScore()) {
+                break;
+            }
+            int[] neighbours = levelOf(current, level);
+            for (int i = 1; neighbours != null && i <= neighbours[0]; i++) {
+                int n = neighbours[i];
+                if (visited.get(n)) {
+                    continue;
+                }
+                visited.set(n);
+                double s = store.similarity(n, query);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(-s, n);
+                    results.push(s, n);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // Adds target to node's neighbour list at level, keeping only the closest when it overflows
+    private void link(int node, int target, int level, float[] nodeVector) {
+        int[] neighbours = links[node][level];
+        int capacity = neighbours.length - 1;
+        for (int i = 1; i <= neighbours[0]; i++) {
+            if (neighbours[i] == target) {
+                return;
+            }
+        }
+        if (neighbours[0] < capacity) {
+            neighbours[++neighbours[0]] = target;
+            return;
+        }
+
+        float[] vector = nodeVector != null ? nodeVector : store.vector(node);
+        ScoredHeap keep = new ScoredHeap(capacity + 1);
+        keep.push(store.similarity(target, vector), target);
+        for (int i = 1; i <= neighbours[0]; i++) {
+            keep.offer(store.similarity(neighbours[i], vector), neighbours[i], capacity);
+        }
+        if (keep.size() > capacity) {
+            keep.pop();
+        }
+        neighbours[0] = keep.size();
+        for (int i = 1; !keep.isEmpty(); i++) {
+            neighbours[i] = keep.topId();
+            keep.pop();
+        }
+    }
+
+    private int[] levelOf(int row, int level) {
+        int[][] nodeLinks = links[row];
+        return nodeLinks != null && level < nodeLinks.length ? nodeLinks[level] : null;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows >= links.length) {
+            links = Arrays.copyOf(links, Math.max(rows + 1, links.length * 2));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.main.AI.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Which {@link VectorIndex} tenant stores are searched with, chosen once per deployment.
+ *
+ * {@code flat} scans every row and is exact; {@code hnsw} walks an HNSW graph whose shape is
+ * set by {@code m} (links per node), {@code efConstruction} (build-time beam width) and
+ * {@code efSearch} (query-time beam width, trading latency for recall); {@code int8} scans
+ * int8 codes of the vectors, the only copy it keeps resident at about a quarter of the floats,
+ * and re-scores the best {@code maxResults * rerankFactor} at full precision from the mapped
+ * snapshot, where a larger factor buys recall with latency.
+ *
+ * Independently of the type, {@code coarseDocuments > 0} enables two-stage search: documents
+ * are ranked by their centroid first and only chunks of the best {@code coarseDocuments} are scored.
+ * A flat index splits stores of at least {@code parallelMinRows} rows into shards of
+ * {@code shardRows} rows that are scanned in parallel; {@code shardRows == 0} keeps it sequential.
+ * {@code textStorage} decides where chunk text lives: on the heap, or only on disk (optionally
+ * deflated), fetched for the rows a search returns.
+ * {@code duplicateDistance >= 0} drops chunks at ingest whose SimHash is within that many bits
+ * of a chunk the same document already has; see {@link NearDuplicateIndex}.
+ * {@code lexicalMinShare >= 0} fuses BM25 hits scoring at least that share of the query's
+ * attainable score into vector results (see {@link LexicalIndex}); negative searches by vector only.
+ */
+public final class IndexConfig {
+
+    public enum Type { FLAT, HNSW, INT8 }
+
+    public enum TextStorage { HEAP, DISK, COMPRESSED }
+
+    private final Type type;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int rerankFactor;
+    private final int coarseDocuments;
+    private final int shardRows;
+    private final int parallelMinRows;
+    private final TextStorage textStorage;
+    private final int duplicateDistance;
+    private final double lexicalMinShare;
+
+    public IndexConfig(Type type, int m, int efConstruction, int efSearch) {
+        this(type, m, efConstruction, efSearch, 0);
+    }
+
+    public IndexConfig(Type type, int m, int efConstruction, int efSearch, int rerankFactor) {
+        this(type, m, efConstruction, efSearch, rerankFactor, 0, 0, 0, TextStorage.HEAP, -1, 0);
+    }
+
+    private IndexConfig(Type type, int m, int efConstruction, int efSearch, int rerankFactor,
+                        int coarseDocuments, int shardRows, int parallelMinRows, TextStorage textStorage,
+                        int duplicateDistance, double lexicalMinShare) {
+        // Checked here too so a bad HNSW_* setting fails at startup rather than on the first tenant loaded
+        if (type == Type.HNSW) {
+            HnswIndex.validate(m, efConstruction, efSearch);
+        }
+        this.type = type;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.rerankFactor = rerankFactor;
+        this.coarseDocuments = coarseDocuments;
+        this.shardRows = shardRows;
+        this.parallelMinRows = parallelMinRows;
+        this.textStorage = textStorage;
+        this.duplicateDistance = duplicateDistance;
+        this.lexicalMinShare = lexicalMinShare;
+    }
+
+    public IndexConfig withCoarseDocuments(int coarseDocuments) {
+        return new IndexConfig(type, m, efConstruction, efSearch, rerankFactor, coarseDocuments,
+                shardRows, parallelMinRows, textStorage, duplicateDistance, lexicalMinShare);
+    }
+
+    public IndexConfig withParallelScan(int shardRows, int parallelMinRows) {
+        return new IndexConfig(type, m, efConstruction, efSearch, rerankFactor, coarseDocuments,
+                shardRows, parallelMinRows, textStorage, duplicateDistance, lexicalMinShare);
+    }
+
+    public IndexConfig withTextStorage(TextStorage textStorage) {
+        return new IndexConfig(type, m, efConstruction, efSearch, rerankFactor, coarseDocuments,
+                shardRows, parallelMinRows, textStorage, duplicateDistance, lexicalMinShare);
+    }
+
+    /** {@code similarity} in (0, 1] turns on near-duplicate suppression; 0 turns it off. */
+    public IndexConfig withDuplicateSimilarity(double similarity) {
+        return new IndexConfig(type, m, efConstruction, efSearch, rerankFactor, coarseDocuments,
+                shardRows, parallelMinRows, textStorage,
+                similarity > 0 ? NearDuplicateIndex.maxDistance(similarity) : -1, lexicalMinShare);
+    }
+
+    /** {@code minShare} in [0, 1) keeps BM25 hits scoring at least that share; negative turns lexical search off. */
+    public IndexConfig withLexicalSearch(double minShare) {
+        return new IndexConfig(type, m, efConstruction, efSearch, rerankFactor, coarseDocuments,
+                shardRows, parallelMinRows, textStorage, duplicateDistance, minShare);
+    }
+
+    public static IndexConfig flat() {
+        return new IndexConfig(Type.FLAT, 0, 0, 0);
+    }
+
+    public static IndexConfig int8(int rerankFactor) {
+        return new IndexConfig(Type.INT8, 0, 0, 0, rerankFactor);
+    }
+
+    public Type type() { return type; }
+    public int coarseDocuments() { return coarseDocuments; }
+    public TextStorage textStorage() { return textStorage; }
+    /** SimHash bits near duplicates may differ in, or -1 when they are kept. */
+    public int duplicateDistance() { return duplicateDistance; }
+    /** Least share of its attainable BM25 score a lexical hit needs, or negative for vector-only search. */
+    public double lexicalMinShare() { return lexicalMinShare; }
+
+    /** Where the index of the snapshot at {@code snapshotPath} is persisted, if it needs to be. */
+    public static Path indexPath(Path snapshotPath) {
+        String name = snapshotPath.getFileName().toString();
+        String base = name.endsWith(".vdb") ? name.substring(0, name.length() - ".vdb".length()) : name;
+        return snapshotPath.resolveSibling(base + ".hnsw");
+    }
+
+    /** Where the quantized codes of the snapshot at {@code snapshotPath} are persisted. */
+    public static Path quantizedPath(Path snapshotPath) {
+        String name = snapshotPath.getFileName().toString();
+        String base = name.endsWith(".vdb") ? name.substring(0, name.length() - ".vdb".length()) : name;
+        return snapshotPath.resolveSibling(base + ".q8");
+    }
+
+    /** The file this type of index is persisted to next to {@code snapshotPath}, or null if it isn't. */
+    public Path indexFile(Path snapshotPath) {
+        return switch (type) {
+            case FLAT -> null;
+            case HNSW -> indexPath(snapshotPath);
+            case INT8 -> quantizedPath(snapshotPath);
+        };
+    }
+
+    /** Builds the index for the rows already in {@code store}, reusing a persisted graph when it matches. */
+    public VectorIndex create(SegmentStore store, Path snapshotPath) throws IOException {
+        if (type == Type.FLAT) {
+            return new FlatIndex(store, shardRows, parallelMinRows);
+        }
+        if (type == Type.INT8) {
+            return createQuantized(store, snapshotPath);
+        }
+
+        HnswIndex index = null;
+        if (snapshotPath != null && store.snapshotStamp() != 0 && Files.exists(indexPath(snapshotPath))) {
+            index = HnswIndex.read(indexPath(snapshotPath), store, store.snapshotStamp(), m, efConstruction, efSearch);
+        }
+        if (index == null) {
+            index = new HnswIndex(store, m, efConstruction, efSearch);
+            for (int row = 0; row < store.rowCount(); row++) {
+                index.added(row);
+            }
+        }
+        return index;
+    }
+
+    private QuantizedIndex createQuantized(SegmentStore store, Path snapshotPath) throws IOException {
+        QuantizedIndex index = null;
+        if (snapshotPath != null && store.snapshotStamp() != 0 && Files.exists(quantizedPath(snapshotPath))) {
+            index = QuantizedIndex.read(quantizedPath(snapshotPath), store, store.snapshotStamp(), rerankFactor);
+        }
+        if (index == null) {
+            index = new QuantizedIndex(store, rerankFactor);
+            for (int row = 0; row < store.rowCount(); row++) {
+                index.added(row);
+            }
+        }
+        return index;
+    }
+}
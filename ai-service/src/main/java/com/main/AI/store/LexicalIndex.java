@@ -0,0 +1,262 @@
+package com.main.AI.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BM25 inverted index over the chunk text of a tenant's store, for queries whose exact terms
+ * (course codes, names, formulas) embeddings don't capture well.
+ *
+ * Like the {@link DocumentCatalog} it is told about every row the store adds and removes.
+ * Postings of removed rows stay until the next snapshot and are skipped at query time, but
+ * document frequencies and lengths are updated right away so scores stay exact.
+ * It is written next to each snapshot ({@code <id>.bm25}) and rebuilt from the rows once
+ * when that file is missing or stale.
+ */
+public class LexicalIndex {
+
+    private static final int MAGIC = 0x53424D32; // "SBM2"
+    private static final int VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Too common to tell chunks apart; dropping them keeps "what is the ..." questions from matching everything
+    // Question fillers like "tell me about" are dropped too, or they'd count as unmatched query terms
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "about", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "explain", "for",
+            "from", "how", "i", "in", "is", "it", "me", "my", "of", "on", "or", "please", "tell", "that",
+            "the", "this", "to", "was", "what", "when", "where", "which", "who", "why", "with", "you");
+
+    private static final class Postings {
+        int[] rows = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+        int documentFrequency;
+
+        void add(int row, int frequency) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            rows[size] = row;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] lengths = new int[16];
+    private int documents;
+    private long totalLength;
+
+    /** Indexes the live rows of {@code store}. */
+    public static LexicalIndex scan(SegmentStore store) {
+        LexicalIndex index = new LexicalIndex();
+        for (int row = 0; row < store.rowCount(); row++) {
+            if (!store.isDeleted(row)) {
+                index.added(row, store.segment(row).text());
+            }
+        }
+        return index;
+    }
+
+    public void added(int row, String text) {
+        Map<String, Integer> frequencies = termFrequencies(text);
+        if (row >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(row + 1, lengths.length * 2));
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(row, entry.getValue());
+            length += entry.getValue();
+        }
+        lengths[row] = length;
+        totalLength += length;
+        documents++;
+    }
+
+    public void removed(int row, String text) {
+        for (String term : termFrequencies(text).keySet()) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.documentFrequency--;
+            }
+        }
+        totalLength -= lengths[row];
+        lengths[row] = 0;
+        documents--;
+    }
+
+    public void cleared() {
+        postings.clear();
+        Arrays.fill(lengths, 0);
+        documents = 0;
+        totalLength = 0;
+    }
+
+    /** Live rows matching any term of {@code query}, best BM25 score first, at most {@code maxResults}. */
+    public List<ScoredRow> search(String query, int maxResults, BitSet filter, SegmentStore store) {
+        return search(query, maxResults, 0, filter, store);
+    }
+
+    /**
+     * Like {@link #search(String, int, BitSet, SegmentStore)}, keeping only rows that score at
+     * least {@code minShare} of the most any row could score for {@code query}. That ceiling
+     * counts query terms no chunk contains at the rarest term's weight, so a question sharing
+     * one word with the corpus doesn't reach a useful share.
+     */
+    public List<ScoredRow> search(String query, int maxResults, double minShare, BitSet filter, SegmentStore store) {
+        ScoredHeap best = new ScoredHeap(maxResults);
+        if (documents == 0 || maxResults <= 0) {
+            return FlatIndex.drain(best);
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / documents);
+        Map<Integer, Double> scores = new HashMap<>();
+        double ceiling = 0;
+        for (String term : termFrequencies(query).keySet()) {
+            Postings list = postings.get(term);
+            double df = list == null ? 0 : Math.max(0, list.documentFrequency);
+            double idf = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            // A term's score tends to idf * (K1 + 1) as its frequency grows
+            ceiling += idf * (K1 + 1);
+            if (df == 0) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int row = list.rows[i];
+                if (store.isDeleted(row) || (filter != null && !filter.get(row))) {
+                    continue;
+                }
+                double tf = list.frequencies[i];
+                double norm = tf + K1 * (1 - B + B * lengths[row] / averageLength);
+                scores.merge(row, idf * tf * (K1 + 1) / norm, Double::sum);
+            }
+        }
+        double minScore = minShare * ceiling;
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (entry.getValue() >= minScore) {
+                best.offer(entry.getValue(), entry.getKey(), maxResults);
+            }
+        }
+        return FlatIndex.drain(best);
+    }
+
+    /** Lower-cased runs of letters and digits, minus stopwords, with their counts. */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOPWORDS.contains(term)) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+                start = -1;
+            }
+        }
+        return frequencies;
+    }
+
+    /** Where the index of the snapshot at {@code snapshotPath} is persisted. */
+    public static Path indexPath(Path snapshotPath) {
+        String name = snapshotPath.getFileName().toString();
+        String base = name.endsWith(".vdb") ? name.substring(0, name.length() - ".vdb".length()) : name;
+        return snapshotPath.resolveSibling(base + ".bm25");
+    }
+
+    /** Writes the postings of live rows, renumbered the way {@link BinaryStoreFormat#write} numbers them. */
+    public void write(Path path, long snapshotStamp, SegmentStore store) throws IOException {
+        int[] renumbered = new int[store.rowCount()];
+        int live = 0;
+        for (int row = 0; row < renumbered.length; row++) {
+            renumbered[row] = store.isDeleted(row) ? -1 : live++;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotStamp);
+            out.writeInt(live);
+            for (int row = 0; row < renumbered.length; row++) {
+                if (renumbered[row] >= 0) {
+                    out.writeInt(row < lengths.length ? lengths[row] : 0);
+                }
+            }
+            List<Map.Entry<String, Postings>> terms = new ArrayList<>();
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                if (entry.getValue().documentFrequency > 0) {
+                    terms.add(entry);
+                }
+            }
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> entry : terms) {
+                Postings list = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(list.documentFrequency);
+                for (int i = 0; i < list.size; i++) {
+                    int row = renumbered[list.rows[i]];
+                    if (row >= 0) {
+                        out.writeInt(row);
+                        out.writeInt(list.frequencies[i]);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads an index written for exactly this snapshot, or returns null if it doesn't match. */
+    public static LexicalIndex read(Path path, long snapshotStamp, int rowCount) throws IOException {
+        if (snapshotStamp == 0 || !Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != snapshotStamp) {
+                return null;
+            }
+            int rows = in.readInt();
+            if (rows != rowCount) {
+                return null;
+            }
+            LexicalIndex index = new LexicalIndex();
+            index.lengths = new int[Math.max(rows, 16)];
+            for (int row = 0; row < rows; row++) {
+                index.lengths[row] = in.readInt();
+                index.totalLength += index.lengths[row];
+            }
+            index.documents = rows;
+            int terms = in.readInt();
+            for (int t = 0; t < terms; t++) {
+                String term = in.readUTF();
+                int count = in.readInt();
+                Postings list = new Postings();
+                for (int i = 0; i < count; i++) {
+                    list.add(in.readInt(), in.readInt());
+                }
+                index.postings.put(term, list);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.main.AI.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Read-only vector block that reads straight out of a memory-mapped store file.
+ *
+ * Current snapshots hold unit-length rows. Older ones don't, so for those the
+ * row norms are computed once when the block is created.
+ */
+public class MappedVectorBlock implements VectorBlock {
+
+    private static final ValueLayout.OfFloat FLOAT_LE =
+            ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final MemorySegment data;
+    private final int dimension;
+    private final int size;
+    private final float[] inverseNorms;
+
+    public MappedVectorBlock(MemorySegment data, int dimension, int size, boolean normalized) {
+        this.data = data;
+        this.dimension = dimension;
+        this.size = size;
+        this.inverseNorms = normalized ? null : inverseNorms(data, dimension, size);
+    }
+
+    @Override
+    public int dimension() { return dimension; }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public double similarity(int row, float[] unitQuery) {
+        float dot = VectorMath.dot(data, offset(row), unitQuery, dimension);
+        return inverseNorms == null ? dot : dot * inverseNorms[row];
+    }
+
+    @Override
+    public void similarities(float[] unitQuery, int from, int to, float[] out, int outOffset) {
+        for (int row = from; row < to; row++) {
+            float dot = VectorMath.dot(data, offset(row), unitQuery, dimension);
+            out[outOffset++] = inverseNorms == null ? dot : dot * inverseNorms[row];
+        }
+    }
+
+    @Override
+    public void copyRow(int row, float[] dst) {
+        MemorySegment.copy(data, FLOAT_LE, offset(row), dst, 0, dimension);
+        if (inverseNorms != null) {
+            for (int i = 0; i < dimension; i++) {
+                dst[i] *= inverseNorms[row];
+            }
+        }
+    }
+
+    private long offset(int row) {
+        return (long) row * dimension * Float.BYTES;
+    }
+
+    private static float[] inverseNorms(MemorySegment data, int dimension, int size) {
+        float[] inverse = new float[size];
+        for (int row = 0; row < size; row++) {
+            double sum = 0;
+            for (int i = 0; i < dimension; i++) {
+                float v = data.get(FLOAT_LE, ((long) row * dimension + i) * Float.BYTES);
+                sum += v * v;
+            }
+            inverse[row] = sum == 0 ? 0 : (float) (1 / Math.sqrt(sum));
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,198 @@
+package com.main.AI.store;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds chunks whose text nearly repeats one already stored, such as slide headers, footers
+ * and boilerplate, so ingestion can skip them. Callers narrow the match to rows of the same
+ * document, so a document never relies on another's copy of a chunk.
+ *
+ * Each text gets a 64-bit SimHash over its lower-cased word pairs; two texts count as near
+ * duplicates when their fingerprints differ in at most {@code maxDistance} bits. Fingerprints
+ * are split into {@code maxDistance + 1} bands and indexed by band, so by pigeonhole any match
+ * shares a band with the query and only those candidates are compared.
+ *
+ * It is neither kept with a store nor persisted: an upload indexes the rows its document
+ * already has, only when it has some, and the chunks of its own batch. Rows are positions in
+ * whatever it indexes, store rows or places in a batch.
+ */
+public class NearDuplicateIndex {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final AtomicLong checked = new AtomicLong();
+    private static final AtomicLong suppressed = new AtomicLong();
+
+    private static final class Rows {
+        int[] rows = new int[2];
+        int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+
+    private final int maxDistance;
+    private final int bandBits;
+    private final Map<Long, Rows> bands = new HashMap<>();
+    private long[] fingerprints = new long[16];
+    private final BitSet live = new BitSet();
+
+    public NearDuplicateIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > 15) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 15 bits");
+        }
+        this.maxDistance = maxDistance;
+        this.bandBits = Long.SIZE / (maxDistance + 1);
+    }
+
+    /** Bits two fingerprints may differ in for texts at least {@code similarity} alike, 0 to 1; at most 15. */
+    public static int maxDistance(double similarity) {
+        return Math.min(15, (int) Math.floor((1 - similarity) * Long.SIZE + 1e-9));
+    }
+
+    /** Indexes the rows {@code document} has in {@code store}, reading only their text. */
+    public static NearDuplicateIndex scan(SegmentStore store, DocumentCatalog.Document document, int maxDistance) {
+        NearDuplicateIndex index = new NearDuplicateIndex(maxDistance);
+        BitSet rows = document.rows();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            index.added(row, store.segment(row).text());
+        }
+        return index;
+    }
+
+    public void added(int row, String text) {
+        long fingerprint = fingerprint(text);
+        if (fingerprint == 0) {
+            return;
+        }
+        if (row >= fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, Math.max(row + 1, fingerprints.length * 2));
+        }
+        fingerprints[row] = fingerprint;
+        live.set(row);
+        for (int band = 0; band <= maxDistance; band++) {
+            bands.computeIfAbsent(bandKey(fingerprint, band), key -> new Rows()).add(row);
+        }
+    }
+
+    // Band entries of removed rows stay and are skipped by live
+    public void removed(int row) {
+        live.clear(row);
+    }
+
+    /** A live row whose text nearly repeats {@code text}, or -1. */
+    public int findDuplicate(String text) {
+        return findDuplicate(text, row -> true);
+    }
+
+    /** A live row among those {@code rows} accepts whose text nearly repeats {@code text}, or -1. */
+    public int findDuplicate(String text, IntPredicate rows) {
+        long fingerprint = fingerprint(text);
+        if (fingerprint == 0) {
+            return -1;
+        }
+        for (int band = 0; band <= maxDistance; band++) {
+            Rows candidates = bands.get(bandKey(fingerprint, band));
+            if (candidates == null) {
+                continue;
+            }
+            for (int i = 0; i < candidates.size; i++) {
+                int row = candidates.rows[i];
+                if (live.get(row) && Long.bitCount(fingerprints[row] ^ fingerprint) <= maxDistance
+                        && rows.test(row)) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long bandKey(long fingerprint, int band) {
+        int shift = band * bandBits;
+        int width = band == maxDistance ? Long.SIZE - shift : bandBits;
+        if (width == Long.SIZE) {
+            return fingerprint;
+        }
+        // With two or more bands a band is at most 32 bits, leaving the top byte for its number
+        return ((long) band << 56) | ((fingerprint >>> shift) & ((1L << width) - 1));
+    }
+
+    /**
+     * SimHash of the lower-cased runs of letters and digits, over consecutive word pairs (the
+     * single word for one-word texts); 0 when the text has no words.
+     */
+    public static long fingerprint(String text) {
+        int[] weights = new int[Long.SIZE];
+        long previous = 0;
+        int words = 0;
+        long hash = FNV_OFFSET;
+        boolean inWord = false;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inWord = true;
+            } else if (inWord) {
+                if (words > 0) {
+                    addFeature(weights, mix(previous * 31 + hash));
+                }
+                previous = hash;
+                words++;
+                hash = FNV_OFFSET;
+                inWord = false;
+            }
+        }
+        if (words == 1) {
+            addFeature(weights, mix(previous));
+        }
+        if (words == 0) {
+            return 0;
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static void addFeature(int[] weights, long feature) {
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            weights[bit] += ((feature >>> bit) & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    // Finalizer of SplitMix64, so nearby word hashes land on unrelated bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Adds to the process-wide counts of chunks checked and of near duplicates dropped. */
+    public static void record(int checkedChunks, int suppressedChunks) {
+        checked.addAndGet(checkedChunks);
+        suppressed.addAndGet(suppressedChunks);
+    }
+
+    /** Process-wide counts of chunks checked and of near duplicates dropped at ingest. */
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checked", checked.get());
+        stats.put("suppressed", suppressed.get());
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package com.main.AI.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide counters for vector memory held outside the Java heap: blocks allocated by
+ * {@link OffHeapVectorBlock} and snapshot files mapped by {@link BinaryStoreFormat#open}.
+ * Both go back down when the owning {@link SegmentStore} is closed.
+ */
+public final class OffHeapMemory {
+
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final AtomicLong allocatedBlocks = new AtomicLong();
+    private static final AtomicLong mappedBytes = new AtomicLong();
+    private static final AtomicLong mappedFiles = new AtomicLong();
+
+    private OffHeapMemory() {
+    }
+
+    static void allocated(long bytes) {
+        allocatedBytes.addAndGet(bytes);
+        allocatedBlocks.incrementAndGet();
+    }
+
+    static void freed(long bytes) {
+        allocatedBytes.addAndGet(-bytes);
+        allocatedBlocks.decrementAndGet();
+    }
+
+    static void mapped(long bytes) {
+        mappedBytes.addAndGet(bytes);
+        mappedFiles.incrementAndGet();
+    }
+
+    static void unmapped(long bytes) {
+        mappedBytes.addAndGet(-bytes);
+        mappedFiles.decrementAndGet();
+    }
+
+    public static long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public static long mappedBytes() {
+        return mappedBytes.get();
+    }
+
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("allocatedBytes", allocatedBytes.get());
+        stats.put("allocatedBlocks", allocatedBlocks.get());
+        stats.put("mappedBytes", mappedBytes.get());
+        stats.put("mappedFiles", mappedFiles.get());
+        stats.put("totalBytes", allocatedBytes.get() + mappedBytes.get());
+        return stats;
+    }
+}
@@ -0,0 +1,101 @@
+package com.main.AI.store;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Growable vector block whose rows live in native memory, so a warm tenant's vectors add
+ * nothing to the heap the collector has to trace. Rows are normalized on the way in.
+ *
+ * Each allocation has its own shared {@link Arena}; growing copies the rows into a block
+ * twice the size and closes the old arena right away, and {@link #close()} frees the last one.
+ * Appends and close must not overlap with reads, which the tenant's write lock guarantees.
+ */
+public class OffHeapVectorBlock implements VectorBlock, AutoCloseable {
+
+    // Same layout as mapped snapshots, so the dot kernels read both the same way
+    private static final ValueLayout.OfFloat FLOAT_LE =
+            ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final int dimension;
+    private final long rowBytes;
+    private Arena arena;
+    private MemorySegment data;
+    private int capacity;
+    private int size;
+
+    public OffHeapVectorBlock(int dimension) {
+        this.dimension = dimension;
+        this.rowBytes = (long) dimension * Float.BYTES;
+        allocate(16);
+    }
+
+    @Override
+    public int dimension() { return dimension; }
+
+    @Override
+    public int size() { return size; }
+
+    public void append(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+        }
+        if (data == null) {
+            throw new IllegalStateException("Vector block is closed");
+        }
+        if (size == capacity) {
+            Arena previousArena = arena;
+            MemorySegment previous = data;
+            allocate(capacity * 2);
+            MemorySegment.copy(previous, 0, data, 0, size * rowBytes);
+            release(previousArena, previous.byteSize());
+        }
+        MemorySegment.copy(VectorMath.normalize(vector), 0, data, FLOAT_LE, size * rowBytes, dimension);
+        size++;
+    }
+
+    @Override
+    public double similarity(int row, float[] unitQuery) {
+        return VectorMath.dot(data, row * rowBytes, unitQuery, dimension);
+    }
+
+    @Override
+    public void similarities(float[] unitQuery, int from, int to, float[] out, int outOffset) {
+        for (int row = from; row < to; row++) {
+            out[outOffset++] = VectorMath.dot(data, row * rowBytes, unitQuery, dimension);
+        }
+    }
+
+    @Override
+    public void copyRow(int row, float[] dst) {
+        MemorySegment.copy(data, FLOAT_LE, row * rowBytes, dst, 0, dimension);
+    }
+
+    /** Native bytes reserved for rows, including unused capacity. */
+    public long offHeapBytes() {
+        return data == null ? 0 : data.byteSize();
+    }
+
+    @Override
+    public void close() {
+        if (data != null) {
+            release(arena, data.byteSize());
+            arena = null;
+            data = null;
+        }
+    }
+
+    private void allocate(int rows) {
+        arena = Arena.ofShared();
+        data = arena.allocate(Math.max(rows * rowBytes, 1), Float.BYTES);
+        capacity = rows;
+        OffHeapMemory.allocated(data.byteSize());
+    }
+
+    private static void release(Arena arena, long bytes) {
+        arena.close();
+        OffHeapMemory.freed(bytes);
+    }
+}
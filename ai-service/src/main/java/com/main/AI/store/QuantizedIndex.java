@@ -0,0 +1,170 @@
+package com.main.AI.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Exact-scan index over int8 codes of the store's vectors.
+ *
+ * Each unit-length row is kept as {@code dimension} signed bytes plus one float scale
+ * ({@code max |x| / 127}), about a quarter of the float row. A query is scored against the
+ * codes, and the best {@code maxResults * rerankFactor} candidates are re-scored against the
+ * full-precision rows, which for a mapped snapshot means only those rows are paged in.
+ * A rerank factor of 0 skips re-ranking and returns the quantized scores as they are.
+ *
+ * The codes are what a hot tenant keeps resident: its snapshot stays mapped but is not paged
+ * in, and the tenant cache weighs it by the codes rather than its files. Rows added since the
+ * snapshot still hold their floats in memory until the next compaction.
+ */
+public class QuantizedIndex implements VectorIndex {
+
+    private static final int MAGIC = 0x53425138; // "SBQ8"
+    private static final int VERSION = 1;
+
+    private final SegmentStore store;
+    private final int rerankFactor;
+    private int dimension;
+    private int rows;
+    private byte[] codes = new byte[0];
+    private float[] scales = new float[0];
+
+    public QuantizedIndex(SegmentStore store, int rerankFactor) {
+        this.store = store;
+        this.rerankFactor = rerankFactor;
+        this.dimension = store.dimension();
+    }
+
+    @Override
+    public void added(int row) {
+        if (dimension == 0) {
+            dimension = store.dimension();
+        }
+        ensureCapacity(row + 1);
+        float[] vector = store.vector(row);
+        float max = 0;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        float scale = max == 0 ? 0 : max / 127;
+        int base = row * dimension;
+        for (int i = 0; i < dimension; i++) {
+            codes[base + i] = scale == 0 ? 0 : (byte) Math.round(vector[i] / scale);
+        }
+        scales[row] = scale;
+        rows = Math.max(rows, row + 1);
+    }
+
+    @Override
+    public void removed(int row) {
+    }
+
+    @Override
+    public void cleared() {
+    }
+
+    @Override
+    public List<ScoredRow> search(float[] query, int maxResults, double minScore, BitSet filter) {
+        ScoredHeap best = new ScoredHeap(maxResults);
+        if (maxResults <= 0) {
+            return FlatIndex.drain(best);
+        }
+        float[] unitQuery = VectorMath.normalize(query);
+        int candidates = rerankFactor > 0 ? maxResults * rerankFactor : maxResults;
+        ScoredHeap approximate = new ScoredHeap(candidates);
+        int first = filter == null ? 0 : filter.nextSetBit(0);
+        for (int row = first; row >= 0 && row < rows; row = filter == null ? row + 1 : filter.nextSetBit(row + 1)) {
+            if (store.isDeleted(row)) {
+                continue;
+            }
+            double cosine = scales[row] * VectorMath.dot(codes, row * dimension, unitQuery, dimension);
+            approximate.offer(cosine, row, candidates);
+        }
+
+        while (!approximate.isEmpty()) {
+            int row = approximate.topId();
+            double cosine = rerankFactor > 0 ? store.similarity(row, unitQuery) : approximate.topScore();
+            approximate.pop();
+            double score = (cosine + 1) / 2;
+            if (score >= minScore) {
+                best.offer(score, row, maxResults);
+            }
+        }
+        return FlatIndex.drain(best);
+    }
+
+    @Override
+    public boolean readsEveryVector() {
+        return false;
+    }
+
+    /** Bytes held for the codes and scales, against 4 bytes per component for float rows. */
+    @Override
+    public long heapBytes() {
+        return codes.length + (long) scales.length * Float.BYTES;
+    }
+
+    /** Writes the codes of live rows, in the order {@link BinaryStoreFormat#write} numbers them. */
+    @Override
+    public void write(Path path, long snapshotStamp) throws IOException {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!store.isDeleted(row)) live++;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotStamp);
+            out.writeInt(live);
+            out.writeInt(dimension);
+            for (int row = 0; row < rows; row++) {
+                if (store.isDeleted(row)) {
+                    continue;
+                }
+                out.writeFloat(scales[row]);
+                out.write(codes, row * dimension, dimension);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads codes written for exactly this snapshot, or returns null if they don't match. */
+    static QuantizedIndex read(Path path, SegmentStore store, long snapshotStamp, int rerankFactor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != snapshotStamp) {
+                return null;
+            }
+            int count = in.readInt();
+            int dimension = in.readInt();
+            if (count != store.rowCount() || dimension != store.dimension()) {
+                return null;
+            }
+            QuantizedIndex index = new QuantizedIndex(store, rerankFactor);
+            index.ensureCapacity(count);
+            for (int row = 0; row < count; row++) {
+                index.scales[row] = in.readFloat();
+                in.readFully(index.codes, row * dimension, dimension);
+            }
+            index.rows = count;
+            return index;
+        }
+    }
+
+    private void ensureCapacity(int rowCount) {
+        if (rowCount > scales.length) {
+            int capacity = Math.max(rowCount, Math.max(16, scales.length * 2));
+            scales = Arrays.copyOf(scales, capacity);
+            codes = Arrays.copyOf(codes, capacity * dimension);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.main.AI.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Plain-Java fallback used when the incubating Vector API module isn't enabled.
+ * Four independent accumulators let the JIT overlap the multiply-adds.
+ */
+final class ScalarDotKernel implements DotKernel {
+
+    private static final ValueLayout.OfFloat FLOAT_LE =
+            ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] rows, int offset, float[] query, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += rows[offset + i] * query[i];
+            s1 += rows[offset + i + 1] * query[i + 1];
+            s2 += rows[offset + i + 2] * query[i + 2];
+            s3 += rows[offset + i + 3] * query[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += rows[offset + i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float dot(MemorySegment rows, long byteOffset, float[] query, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += rows.get(FLOAT_LE, byteOffset + (long) i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(byte[] codes, int offset, float[] query, int length) {
+        float s0 = 0, s1 = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            s0 += codes[offset + i] * query[i];
+            s1 += codes[offset + i + 1] * query[i + 1];
+        }
+        for (; i < length; i++) {
+            s0 += codes[offset + i] * query[i];
+        }
+        return s0 + s1;
+    }
+}
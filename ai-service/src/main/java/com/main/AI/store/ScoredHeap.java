@@ -0,0 +1,79 @@
+package com.main.AI.store;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (score, id) pairs kept in parallel primitive arrays, so ranking
+ * rows doesn't box a wrapper object per candidate. Push negated scores for a max-heap.
+ */
+public final class ScoredHeap {
+
+    private double[] scores;
+    private int[] ids;
+    private int size;
+
+    public ScoredHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 4);
+        this.scores = new double[capacity];
+        this.ids = new int[capacity];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public double topScore() { return scores[0]; }
+    public int topId() { return ids[0]; }
+
+    public void push(double score, int id) {
+        if (size == scores.length) {
+            scores = Arrays.copyOf(scores, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            scores[i] = scores[parent];
+            ids[i] = ids[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        ids[i] = id;
+    }
+
+    /** Keeps only the {@code k} highest scores seen so far. */
+    public void offer(double score, int id, int k) {
+        if (size < k) {
+            push(score, id);
+        } else if (k > 0 && score > scores[0]) {
+            replaceTop(score, id);
+        }
+    }
+
+    public void pop() {
+        size--;
+        if (size > 0) {
+            replaceTop(scores[size], ids[size]);
+        }
+    }
+
+    private void replaceTop(double score, int id) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            scores[i] = scores[child];
+            ids[i] = ids[child];
+            i = child;
+        }
+        scores[i] = score;
+        ids[i] = id;
+    }
+}
@@ -0,0 +1,18 @@
+package com.main.AI.store;
+
+/**
+ * A store row together with its relevance score for some query.
+ */
+public final class ScoredRow {
+
+    private final int row;
+    private final double score;
+
+    public ScoredRow(int row, double score) {
+        this.row = row;
+        this.score = score;
+    }
+
+    public int row() { return row; }
+    public double score() { return score; }
+}
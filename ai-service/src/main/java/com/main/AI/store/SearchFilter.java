@@ -0,0 +1,22 @@
+package com.main.AI.store;
+
+import java.util.Set;
+
+/**
+ * Restricts a search to some of a tenant's documents: those whose id is in {@code docIds}
+ * and whose upload time, in epoch milliseconds, lies in [{@code uploadedFrom}, {@code uploadedTo}].
+ * A null bound or id set doesn't restrict anything.
+ */
+public record SearchFilter(Set<String> docIds, Long uploadedFrom, Long uploadedTo) {
+
+    public static final SearchFilter NONE = new SearchFilter(null, null, null);
+
+    public boolean isEmpty() {
+        return docIds == null && uploadedFrom == null && uploadedTo == null;
+    }
+
+    boolean acceptsUploadTime(long uploadedAt) {
+        return (uploadedFrom == null || uploadedAt >= uploadedFrom)
+                && (uploadedTo == null || uploadedAt <= uploadedTo);
+    }
+}
@@ -0,0 +1,153 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * On-disk home for the text and metadata of rows added since the snapshot, so a
+ * {@link SegmentStore} only keeps their vectors and ids resident. Each row is one record,
+ * {@code [int rawLength][int storedLength][bytes]}, addressed by its file offset, holding the
+ * {@link BinaryStoreFormat#encodeRecord encoded record}, deflated when compression is on and
+ * it makes the record smaller.
+ *
+ * The file is scratch space rebuilt on every load: the segment log stays the durable copy of
+ * these rows, and the next snapshot takes them over.
+ */
+public class SegmentBlob implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final boolean compress;
+    private long size;
+
+    private SegmentBlob(FileChannel channel, boolean compress) {
+        this.channel = channel;
+        this.compress = compress;
+    }
+
+    /** Creates an empty blob at {@code path}, replacing what a previous load left there. */
+    public static SegmentBlob create(Path path, boolean compress) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SegmentBlob(channel, compress);
+    }
+
+    /** Appends the record of {@code segment} and returns its offset. */
+    public synchronized long append(String id, TextSegment segment) {
+        ByteBuffer record = BinaryStoreFormat.encodeRecord(id, segment);
+        int rawLength = record.remaining();
+        byte[] stored = compress ? deflate(record) : null;
+        ByteBuffer out;
+        if (stored != null && stored.length < rawLength) {
+            out = ByteBuffer.allocate(HEADER_BYTES + stored.length).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(rawLength).putInt(stored.length).put(stored);
+        } else {
+            out = ByteBuffer.allocate(HEADER_BYTES + rawLength).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(rawLength).putInt(rawLength).put(record);
+        }
+        out.flip();
+        long offset = size;
+        try {
+            while (out.hasRemaining()) {
+                size += channel.write(out, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to segment blob", e);
+        }
+        return offset;
+    }
+
+    /** Reads back the segment appended at {@code offset}. */
+    public TextSegment read(long offset) {
+        try {
+            ByteBuffer header = readFully(offset, HEADER_BYTES);
+            int rawLength = header.getInt(0);
+            int storedLength = header.getInt(Integer.BYTES);
+            ByteBuffer stored = readFully(offset + HEADER_BYTES, storedLength);
+            ByteBuffer record = storedLength == rawLength ? stored : inflate(stored, 0, storedLength, rawLength);
+            return BinaryStoreFormat.readSegment(record, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read segment blob at " + offset, e);
+        }
+    }
+
+    public synchronized long sizeBytes() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close segment blob", e);
+        }
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Segment blob ends at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /** Deflates the remaining bytes of {@code data} without consuming them. */
+    static byte[] deflate(ByteBuffer data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data.duplicate());
+            deflater.finish();
+            byte[] out = new byte[data.remaining() + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Inflates {@code storedLength} bytes of {@code data} at {@code pos} into a little-endian buffer of {@code rawLength}. */
+    static ByteBuffer inflate(ByteBuffer data, int pos, int storedLength, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            // Copied out because the inflater can't read from a buffer over a closeable mapping
+            byte[] input = new byte[storedLength];
+            data.get(pos, input);
+            inflater.setInput(input);
+            ByteBuffer out = ByteBuffer.allocate(rawLength).order(ByteOrder.LITTLE_ENDIAN);
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (out.hasRemaining()) {
+                throw new IllegalStateException("Truncated compressed record");
+            }
+            return out.flip();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
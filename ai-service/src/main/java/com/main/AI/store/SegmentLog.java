@@ -0,0 +1,175 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the changes made to a tenant's store since its last snapshot.
+ *
+ * Each record is framed as {@code [int length][int crc32][payload]} where the payload starts
+ * with a type byte: ADD carries the vector and the encoded record, DELETE carries the id of a
+ * removed segment (a tombstone) and CLEAR drops everything before it.
+ * Replaying is idempotent, so a log may safely overlap the snapshot it is replayed onto.
+ * A torn record at the tail (crash mid-append) ends the replay and is cut off.
+ */
+public class SegmentLog implements AutoCloseable {
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final int FRAME_BYTES = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private long appended;
+
+    private SegmentLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Opens (creating if needed) the log at {@code path}, replaying its records onto {@code store}. */
+    public static SegmentLog open(Path path, SegmentStore store) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay(channel, store);
+            channel.truncate(end);
+            channel.position(end);
+            return new SegmentLog(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void appendAdd(String id, Embedding embedding, TextSegment segment) {
+        float[] vector = embedding.vector();
+        ByteBuffer record = BinaryStoreFormat.encodeRecord(id, segment);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES + vector.length * Float.BYTES + record.remaining())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        payload.put(ADD).putInt(vector.length);
+        for (float v : vector) {
+            payload.putFloat(v);
+        }
+        payload.put(record);
+        append(payload.flip());
+    }
+
+    public void appendDelete(String id) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES + idBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        payload.put(DELETE).putInt(idBytes.length).put(idBytes);
+        append(payload.flip());
+    }
+
+    public void appendClear() {
+        append(ByteBuffer.allocate(1).put(CLEAR).flip());
+    }
+
+    /** Writes buffered records and forces them to disk. */
+    public synchronized void flush() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+        channel.force(false);
+    }
+
+    /** Number of records appended through this instance; changes whenever the store does. */
+    public synchronized long appendedRecords() {
+        return appended;
+    }
+
+    public synchronized long sizeBytes() throws IOException {
+        return channel.size() + pending.position();
+    }
+
+    /** Drops every record, once a snapshot holding all of them has been written. */
+    public synchronized void truncate() throws IOException {
+        pending.clear();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private synchronized void append(ByteBuffer payload) {
+        int needed = FRAME_BYTES + payload.remaining();
+        if (pending.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            bigger.put(pending.flip());
+            pending = bigger;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        pending.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload);
+        appended++;
+    }
+
+    // Returns the offset just past the last intact record
+    private static long replay(FileChannel channel, SegmentStore store) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (pos + FRAME_BYTES <= size) {
+            frame.clear();
+            channel.read(frame, pos);
+            int length = frame.getInt(0);
+            int checksum = frame.getInt(Integer.BYTES);
+            if (length <= 0 || pos + FRAME_BYTES + length > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (payload.hasRemaining()) {
+                channel.read(payload, pos + FRAME_BYTES + payload.position());
+            }
+            payload.flip();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            apply(payload, store);
+            pos += FRAME_BYTES + length;
+        }
+        return pos;
+    }
+
+    private static void apply(ByteBuffer payload, SegmentStore store) {
+        byte type = payload.get(0);
+        switch (type) {
+            case ADD -> {
+                int dimension = payload.getInt(1);
+                float[] vector = new float[dimension];
+                payload.position(1 + Integer.BYTES).asFloatBuffer().get(vector);
+                int recordPos = 1 + Integer.BYTES + dimension * Float.BYTES;
+                String id = BinaryStoreFormat.readString(payload, recordPos);
+                store.add(id, Embedding.from(vector), BinaryStoreFormat.readSegment(payload, recordPos));
+            }
+            case DELETE -> store.remove(BinaryStoreFormat.readString(payload, 1));
+            case CLEAR -> store.removeAll();
+            default -> throw new IllegalStateException("Unknown segment log record type " + type);
+        }
+    }
+}
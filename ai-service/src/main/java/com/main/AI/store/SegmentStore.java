@@ -0,0 +1,323 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory embedding store for one tenant.
+ * Rows [0, base.size()) come from an immutable {@link Snapshot} (typically memory-mapped),
+ * rows added afterwards live in an {@link OffHeapVectorBlock}; only ids and segments are on
+ * the heap, and with a {@link SegmentBlob} attached not even their segments, which are then
+ * read back from disk when a row's text is needed. {@link #close()} releases all of it. Removed rows are only marked deleted and
+ * disappear the next time the store is written out.
+ * Vectors are held at unit length, so cosine similarity is a dot product.
+ * Searches go through the configured {@link VectorIndex}, a full scan by default.
+ * Scores follow the langchain4j convention: relevance = (cosine + 1) / 2.
+ */
+public class SegmentStore implements AutoCloseable {
+
+    private final Snapshot base;
+    private final int baseSize;
+    private int dimension;
+
+    private OffHeapVectorBlock tailVectors;
+    private final List<String> tailIds = new ArrayList<>();
+    private final List<TextSegment> tailSegments = new ArrayList<>();
+    private SegmentBlob textBlob;
+    private long[] tailTextOffsets = new long[0];
+
+    private final BitSet deleted = new BitSet();
+    private Map<String, Integer> rowById;
+    private int liveCount;
+    private VectorIndex index = new FlatIndex(this);
+    private DocumentCatalog catalog;
+    private LexicalIndex lexical;
+
+    public SegmentStore() {
+        this(null);
+    }
+
+    public SegmentStore(Snapshot base) {
+        this.base = base;
+        this.baseSize = base == null ? 0 : base.size();
+        this.dimension = base == null ? 0 : base.dimension();
+        this.liveCount = baseSize;
+        this.catalog = base == null ? new DocumentCatalog() : null;
+        this.lexical = base == null ? new LexicalIndex() : null;
+    }
+
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding, segment);
+        return id;
+    }
+
+    public void add(String id, Embedding embedding, TextSegment segment) {
+        float[] vector = embedding.vector();
+        if (tailVectors == null) {
+            if (dimension == 0) {
+                dimension = vector.length;
+            }
+            tailVectors = new OffHeapVectorBlock(dimension);
+        }
+        remove(id);
+        tailVectors.append(vector);
+        tailIds.add(id);
+        if (textBlob != null) {
+            spill(tailIds.size() - 1, id, segment);
+            tailSegments.add(null);
+        } else {
+            tailSegments.add(segment);
+        }
+        rowIndex().put(id, rowCount() - 1);
+        liveCount++;
+        index.added(rowCount() - 1);
+        if (catalog != null) {
+            catalog.added(rowCount() - 1, id, segment, vector(rowCount() - 1));
+        }
+        if (lexical != null) {
+            lexical.added(rowCount() - 1, segment.text());
+        }
+    }
+
+    public boolean remove(String id) {
+        Integer row = rowIndex().remove(id);
+        if (row == null) {
+            return false;
+        }
+        deleted.set(row);
+        liveCount--;
+        index.removed(row);
+        if (catalog != null || lexical != null) {
+            TextSegment segment = segment(row);
+            if (catalog != null) {
+                catalog.removed(row, id, segment, vector(row));
+            }
+            if (lexical != null) {
+                lexical.removed(row, segment.text());
+            }
+        }
+        return true;
+    }
+
+    public void removeAll() {
+        deleted.set(0, rowCount());
+        rowIndex().clear();
+        liveCount = 0;
+        index.cleared();
+        if (catalog != null) {
+            catalog.cleared();
+        }
+        if (lexical != null) {
+            lexical.cleared();
+        }
+    }
+
+    public List<EmbeddingMatch<TextSegment>> search(Embedding query, int maxResults, double minScore) {
+        return search(query, maxResults, minScore, null);
+    }
+
+    /** Searches only the rows set in {@code rows}, or every row if it is null. */
+    public List<EmbeddingMatch<TextSegment>> search(Embedding query, int maxResults, double minScore, BitSet rows) {
+        float[] q = query.vector();
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        if (liveCount == 0 || maxResults <= 0) {
+            return matches;
+        }
+        if (q.length != dimension) {
+            throw new IllegalArgumentException("Expected query dimension " + dimension + " but got " + q.length);
+        }
+
+        for (ScoredRow hit : index.search(q, maxResults, minScore, rows)) {
+            int row = hit.row();
+            matches.add(new EmbeddingMatch<>(hit.score(), id(row), Embedding.from(vector(row)), segment(row)));
+        }
+        return matches;
+    }
+
+    public VectorIndex getIndex() {
+        return index;
+    }
+
+    /** Replaces the search index; {@code index} must already cover the rows in this store. */
+    public void setIndex(VectorIndex index) {
+        this.index = index;
+    }
+
+    /** Documents in this store; built from the rows on first use unless one was set. */
+    public synchronized DocumentCatalog getCatalog() {
+        if (catalog == null) {
+            catalog = DocumentCatalog.scan(this);
+        }
+        return catalog;
+    }
+
+    /** Replaces the document catalog; {@code catalog} must already cover the rows in this store. */
+    public synchronized void setCatalog(DocumentCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /** BM25 index over the chunk text; built from the rows on first use unless one was set. */
+    public synchronized LexicalIndex getLexicalIndex() {
+        if (lexical == null) {
+            lexical = LexicalIndex.scan(this);
+        }
+        return lexical;
+    }
+
+    /** Replaces the BM25 index; {@code lexical} must already cover the rows in this store. */
+    public synchronized void setLexicalIndex(LexicalIndex lexical) {
+        this.lexical = lexical;
+    }
+
+    /** Stamp of the snapshot this store was opened on, or 0 if it wasn't opened on one. */
+    public long snapshotStamp() {
+        return base == null ? 0 : base.stamp();
+    }
+
+    /** Native bytes held by rows added since the snapshot; the snapshot itself is mapped. */
+    public long offHeapBytes() {
+        return tailVectors == null ? 0 : tailVectors.offHeapBytes();
+    }
+
+    /**
+     * Pages in the snapshot the store was opened on; rows added since are in memory already.
+     * Skipped when the index scores from its own copy of the vectors, as only the rows it
+     * re-scores are read from the snapshot.
+     */
+    public void makeResident() {
+        if (base != null && index.readsEveryVector()) {
+            base.makeResident();
+        }
+    }
+
+    public void releaseResident() {
+        if (base != null) {
+            base.releaseResident();
+        }
+    }
+
+    /** Frees the added rows and unmaps the snapshot; the store must not be used afterwards. */
+    @Override
+    public void close() {
+        if (tailVectors != null) {
+            tailVectors.close();
+        }
+        if (base != null) {
+            base.close();
+        }
+        if (textBlob != null) {
+            textBlob.close();
+        }
+    }
+
+    /** Number of live rows. */
+    public int size() {
+        return liveCount;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /** Rows removed since the snapshot was written; they still take space until the next one. */
+    public int deletedRows() {
+        return rowCount() - liveCount;
+    }
+
+    /** Number of rows including deleted ones; valid row indexes are [0, rowCount()). */
+    public int rowCount() {
+        return baseSize + tailIds.size();
+    }
+
+    public boolean isDeleted(int row) {
+        return deleted.get(row);
+    }
+
+    public String id(int row) {
+        return row < baseSize ? base.id(row) : tailIds.get(row - baseSize);
+    }
+
+    public TextSegment segment(int row) {
+        if (row < baseSize) {
+            return base.segment(row);
+        }
+        TextSegment segment = tailSegments.get(row - baseSize);
+        return segment != null ? segment : textBlob.read(tailTextOffsets[row - baseSize]);
+    }
+
+    /**
+     * Moves the segments of rows added since the snapshot, and of every row added from now on,
+     * to {@code blob}, leaving only their vectors and ids in memory. The store closes the blob.
+     */
+    public void setTextBlob(SegmentBlob blob) {
+        if (textBlob != null) {
+            textBlob.close();
+        }
+        textBlob = blob;
+        for (int i = 0; i < tailSegments.size(); i++) {
+            TextSegment segment = tailSegments.get(i);
+            if (segment != null) {
+                spill(i, tailIds.get(i), segment);
+                tailSegments.set(i, null);
+            }
+        }
+    }
+
+    private void spill(int tailRow, String id, TextSegment segment) {
+        if (tailRow >= tailTextOffsets.length) {
+            tailTextOffsets = Arrays.copyOf(tailTextOffsets, Math.max(tailRow + 1, Math.max(16, tailTextOffsets.length * 2)));
+        }
+        tailTextOffsets[tailRow] = textBlob.append(id, segment);
+    }
+
+    public float[] vector(int row) {
+        float[] dst = new float[dimension];
+        if (row < baseSize) {
+            base.vectors().copyRow(row, dst);
+        } else {
+            tailVectors.copyRow(row - baseSize, dst);
+        }
+        return dst;
+    }
+
+    // Cosine similarity with a unit-length query
+    double similarity(int row, float[] unitQuery) {
+        return row < baseSize
+                ? base.vectors().similarity(row, unitQuery)
+                : tailVectors.similarity(row - baseSize, unitQuery);
+    }
+
+    // Cosine similarities of rows [from, to) written to out[0..to-from), walking each block contiguously
+    void similarities(float[] unitQuery, int from, int to, float[] out) {
+        int split = Math.min(Math.max(from, baseSize), to);
+        if (from < split) {
+            base.vectors().similarities(unitQuery, from, split, out, 0);
+        }
+        if (split < to) {
+            tailVectors.similarities(unitQuery, split - baseSize, to - baseSize, out, split - from);
+        }
+    }
+
+    // Built on first use so opening a mapped snapshot doesn't have to decode every id
+    private Map<String, Integer> rowIndex() {
+        if (rowById == null) {
+            rowById = new HashMap<>();
+            for (int row = 0; row < rowCount(); row++) {
+                if (!deleted.get(row)) {
+                    rowById.put(id(row), row);
+                }
+            }
+        }
+        return rowById;
+    }
+}
@@ -0,0 +1,86 @@
+package com.main.AI.store;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Dot products with the incubating Vector API, using the widest float lanes the CPU offers.
+ * Only loaded when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ */
+final class SimdDotKernel implements DotKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final ValueLayout.OfFloat FLOAT_LE =
+            ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    // Bytes widened one float vector at a time; null when that would be narrower than any byte shape
+    private static final VectorSpecies<Byte> BYTES = SPECIES.vectorBitSize() / 4 >= 64
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 4))
+            : null;
+
+    private final ScalarDotKernel scalar = new ScalarDotKernel();
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] rows, int offset, float[] query, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromArray(SPECIES, rows, offset + i);
+            acc = row.fma(FloatVector.fromArray(SPECIES, query, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += rows[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(MemorySegment rows, long byteOffset, float[] query, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromMemorySegment(SPECIES, rows,
+                    byteOffset + (long) i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            acc = row.fma(FloatVector.fromArray(SPECIES, query, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += rows.get(FLOAT_LE, byteOffset + (long) i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(byte[] codes, int offset, float[] query, int length) {
+        if (BYTES == null) {
+            return scalar.dot(codes, offset, query, length);
+        }
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = (FloatVector) ByteVector.fromArray(BYTES, codes, offset + i)
+                    .convertShape(VectorOperators.B2F, SPECIES, 0);
+            acc = row.fma(FloatVector.fromArray(SPECIES, query, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += codes[offset + i] * query[i];
+        }
+        return sum;
+    }
+}
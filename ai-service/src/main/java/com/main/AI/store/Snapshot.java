@@ -0,0 +1,32 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Immutable, persisted set of rows that a {@link SegmentStore} is opened on top of.
+ * Closing it releases its mapping; rows must not be read afterwards.
+ */
+public interface Snapshot extends AutoCloseable {
+
+    int size();
+
+    int dimension();
+
+    /** Random value written with the snapshot, used to match side files such as index graphs to it. */
+    long stamp();
+
+    String id(int row);
+
+    TextSegment segment(int row);
+
+    VectorBlock vectors();
+
+    /** Pages the whole snapshot into memory, for tenants queried often enough to keep hot. */
+    void makeResident();
+
+    /** Lets the OS drop the snapshot's pages again; they are read back on the next access. */
+    void releaseResident();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,84 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reads the JSON files written by {@code InMemoryEmbeddingStore.serializeToFile} and converts
+ * them to {@link BinaryStoreFormat}.
+ *
+ * Run once over the dbs directory: {@code java com.main.AI.store.StoreConverter [dir]}.
+ * Every {@code <id>.db} JSON store gets a {@code <id>.vdb} binary twin; the JSON is left in place.
+ */
+public final class StoreConverter {
+
+    private static final String DEFAULT_DIR = "./src/main/resources/dbs/";
+
+    private StoreConverter() {
+    }
+
+    public static SegmentStore readJson(Path path) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(path.toFile());
+        SegmentStore store = new SegmentStore();
+
+        for (JsonNode entry : root.path("entries")) {
+            JsonNode vectorNode = entry.path("embedding").path("vector");
+            float[] vector = new float[vectorNode.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = vectorNode.get(i).floatValue();
+            }
+
+            Metadata metadata = new Metadata();
+            for (Map.Entry<String, JsonNode> field : entry.path("embedded").path("metadata").path("metadata").properties()) {
+                JsonNode value = field.getValue();
+                if (value.isIntegralNumber()) {
+                    metadata.put(field.getKey(), value.longValue());
+                } else if (value.isNumber()) {
+                    metadata.put(field.getKey(), value.doubleValue());
+                } else {
+                    metadata.put(field.getKey(), value.asString());
+                }
+            }
+
+            TextSegment segment = new TextSegment(entry.path("embedded").path("text").asString(), metadata);
+            store.add(entry.path("id").asString(), Embedding.from(vector), segment);
+        }
+        return store;
+    }
+
+    public static Path binaryPath(Path jsonPath) {
+        String name = jsonPath.getFileName().toString();
+        return jsonPath.resolveSibling(name.substring(0, name.length() - ".db".length()) + ".vdb");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : DEFAULT_DIR);
+        int converted = 0;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.db")) {
+            for (Path json : files) {
+                if (BinaryStoreFormat.isBinary(json)) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                SegmentStore store = readJson(json);
+                Path target = binaryPath(json);
+                BinaryStoreFormat.write(target, store);
+                converted++;
+                System.out.printf("%s -> %s: %d segments, %d -> %d bytes in %d ms%n",
+                        json.getFileName(), target.getFileName(), store.size(),
+                        Files.size(json), Files.size(target), (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        System.out.println("Converted " + converted + " store(s) in " + dir);
+    }
+}
@@ -0,0 +1,20 @@
+package com.main.AI.store;
+
+/**
+ * Row-major block of fixed-dimension float vectors.
+ */
+public interface VectorBlock {
+
+    int dimension();
+
+    int size();
+
+    /** Cosine similarity between row {@code row} and {@code unitQuery}, which must have unit length. */
+    double similarity(int row, float[] unitQuery);
+
+    /** Writes the similarities of rows [from, to) to {@code out}, starting at {@code outOffset}. */
+    void similarities(float[] unitQuery, int from, int to, float[] out, int outOffset);
+
+    /** Copies row {@code row}, scaled to unit length, into {@code dst}. */
+    void copyRow(int row, float[] dst);
+}
@@ -0,0 +1,42 @@
+package com.main.AI.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Search structure over the rows of a {@link SegmentStore}.
+ * The store tells the index about every row it appends and removes; the index answers
+ * top-k queries with relevance scores in the langchain4j convention, (cosine + 1) / 2.
+ */
+public interface VectorIndex {
+
+    void added(int row);
+
+    void removed(int row);
+
+    void cleared();
+
+    /** Live rows scoring at least {@code minScore}, best first, at most {@code maxResults}. */
+    default List<ScoredRow> search(float[] query, int maxResults, double minScore) {
+        return search(query, maxResults, minScore, null);
+    }
+
+    /** Like {@link #search(float[], int, double)}, restricted to the rows set in {@code filter} unless it is null. */
+    List<ScoredRow> search(float[] query, int maxResults, double minScore, BitSet filter);
+
+    /** Whether searches read every row's vector, so a hot store should page its whole snapshot in. */
+    default boolean readsEveryVector() {
+        return true;
+    }
+
+    /** Bytes the index keeps on the heap for its own copy of the rows, if it has one. */
+    default long heapBytes() {
+        return 0;
+    }
+
+    /** Persists whatever the index can't cheaply rebuild, next to the snapshot it was written with. */
+    default void write(Path path, long snapshotStamp) throws IOException {
+    }
+}
@@ -0,0 +1,64 @@
+package com.main.AI.store;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Vector kernels used by search. Stored vectors are kept at unit length, so cosine
+ * similarity is a plain dot product.
+ *
+ * The SIMD kernel is used when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}; otherwise a scalar loop is used.
+ */
+public final class VectorMath {
+
+    private static final DotKernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
+    public static float dot(float[] rows, int offset, float[] query, int length) {
+        return KERNEL.dot(rows, offset, query, length);
+    }
+
+    public static float dot(MemorySegment rows, long byteOffset, float[] query, int length) {
+        return KERNEL.dot(rows, byteOffset, query, length);
+    }
+
+    public static float dot(byte[] codes, int offset, float[] query, int length) {
+        return KERNEL.dot(codes, offset, query, length);
+    }
+
+    /** Returns a unit-length copy of {@code vector}; an all-zero vector stays all zeros. */
+    public static float[] normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        float[] unit = new float[vector.length];
+        if (sum == 0) {
+            return unit;
+        }
+        float scale = (float) (1 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * scale;
+        }
+        return unit;
+    }
+
+    private static DotKernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so this class never links against the incubator module
+                return (DotKernel) Class.forName("com.main.AI.store.SimdDotKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector API unavailable, using scalar search kernel: " + e);
+            }
+        }
+        return new ScalarDotKernel();
+    }
+}
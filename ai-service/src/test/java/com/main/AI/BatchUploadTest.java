@@ -0,0 +1,80 @@
+package com.main.AI;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch uploads unpack archives next to plain parts and stay within their limits
+ */
+class BatchUploadTest {
+
+    @Test
+    void testArchivesAreUnpackedBesidePlainFiles() throws IOException {
+        byte[] archive = zip(
+                "week1/notes.txt", "Notes of week one",
+                "week1/", null,
+                "__MACOSX/week1/._notes.txt", "metadata",
+                "week2/.DS_Store", "metadata",
+                "week2\\slides.md", "# Slides");
+        BatchUpload batch = new BatchUpload(10, 1024);
+        batch.add("semester.zip", "application/zip", archive);
+        batch.add("syllabus.txt", "text/plain", "Syllabus".getBytes(StandardCharsets.UTF_8));
+
+        List<BatchUpload.File> files = batch.files();
+        assertEquals(List.of("week1/notes.txt", "week2/slides.md", "syllabus.txt"),
+                files.stream().map(BatchUpload.File::name).toList());
+        assertEquals("Notes of week one", new String(files.get(0).bytes(), StandardCharsets.UTF_8));
+        assertNull(files.get(0).contentType());
+        assertEquals("text/plain", files.get(2).contentType());
+    }
+
+    @Test
+    void testSameNamesStayDistinct() throws IOException {
+        BatchUpload batch = new BatchUpload(10, 1024);
+        batch.add("semester.zip", null, zip("week1/notes.md", "one", "week2/notes.md", "two", "notes.md", "three"));
+        batch.add("notes.md", "text/markdown", "four".getBytes(StandardCharsets.UTF_8));
+        batch.add("C:\\Users\\me\\notes.md", null, "five".getBytes(StandardCharsets.UTF_8));
+        batch.add("README", null, "six".getBytes(StandardCharsets.UTF_8));
+        batch.add("README", null, "seven".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("week1/notes.md", "week2/notes.md", "notes.md", "notes (2).md",
+                        "notes (3).md", "README", "README (2)"),
+                batch.files().stream().map(BatchUpload.File::name).toList());
+    }
+
+    @Test
+    void testLimitsApplyToUnpackedContent() throws IOException {
+        byte[] archive = zip("big.txt", "x".repeat(10_000));
+        assertTrue(archive.length < 1024);
+        BatchUpload small = new BatchUpload(10, 1024);
+        assertThrows(IllegalArgumentException.class, () -> small.add("big.zip", null, archive));
+
+        BatchUpload few = new BatchUpload(2, 1024);
+        few.add("a.txt", null, new byte[1]);
+        few.add("b.txt", null, new byte[1]);
+        assertThrows(IllegalArgumentException.class, () -> few.add("c.txt", null, new byte[1]));
+    }
+
+    // Alternating entry names and contents; a null content adds a folder
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                if (entries[i + 1] != null) {
+                    zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,53 @@
+package com.main.AI;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batching keeps embeddings in segment order, sequentially or in parallel
+ */
+class BatchingEmbeddingModelTest {
+
+    @Test
+    void testBatchesKeepSegmentOrder() {
+        for (int parallel : new int[] {1, 4}) {
+            CountingModel counting = new CountingModel();
+            EmbeddingModel model = new BatchingEmbeddingModel(counting, 8, parallel);
+            List<TextSegment> segments = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                segments.add(TextSegment.from(String.valueOf(i)));
+            }
+
+            List<Embedding> embeddings = model.embedAll(segments).content();
+            assertEquals(50, embeddings.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, embeddings.get(i).vector()[0]);
+            }
+            assertEquals(7, counting.calls.get());
+        }
+    }
+
+    // Embeds "n" as [n, 1]
+    private static class CountingModel implements EmbeddingModel {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            calls.incrementAndGet();
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : segments) {
+                embeddings.add(Embedding.from(new float[] {Float.parseFloat(segment.text()), 1}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.main.AI;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hits, misses and persistence of the embedding cache
+ */
+class CachingEmbeddingModelTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRepeatedTextIsEmbeddedOnce() {
+        LengthModel delegate = new LengthModel();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, 100, null);
+
+        model.embedAll(List.of(TextSegment.from("a b"), TextSegment.from("ccc")));
+        List<Embedding> again = model.embedAll(List.of(
+                TextSegment.from("ccc"), TextSegment.from("  a \n b "), TextSegment.from("dd"))).content();
+
+        assertEquals(List.of("a b", "ccc", "dd"), delegate.embedded);
+        assertEquals(3, again.get(0).vector()[0]);
+        assertEquals(3, again.get(1).vector()[0]);
+        assertEquals(2, again.get(2).vector()[0]);
+        assertEquals(2L, model.stats().get("hits"));
+        assertEquals(3L, model.stats().get("misses"));
+    }
+
+    @Test
+    void testEntriesSurviveRestart() {
+        Path file = dir.resolve("embeddings.cache");
+        new CachingEmbeddingModel(new LengthModel(), 100, file)
+                .embedAll(List.of(TextSegment.from("one"), TextSegment.from("three")));
+
+        LengthModel delegate = new LengthModel();
+        CachingEmbeddingModel reopened = new CachingEmbeddingModel(delegate, 1, file);
+        reopened.embed("three");
+        reopened.embed("one");
+
+        // Only the most recent entry fits after the restart
+        assertEquals(List.of("one"), delegate.embedded);
+    }
+
+    // Embeds a text as [length, 1] and remembers what it was asked for
+    private static class LengthModel implements EmbeddingModel {
+        final List<String> embedded = new ArrayList<>();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : segments) {
+                embedded.add(segment.text());
+                embeddings.add(Embedding.from(new float[] {segment.text().length(), 1}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.main.AI;
+
+import com.main.AI.parser.PdfParseStrategy;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chunking text as it arrives in pieces gives the same chunks as chunking it whole
+ */
+class ChunkPipelineTest {
+
+    @Test
+    void testPiecesChunkLikeWholeText() {
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder();
+        String[] breaks = {"\n\n", "\r\n\r\n", "\n\n\n", "\n", " "};
+        for (int i = 0; i < 400; i++) {
+            text.append("Sentence ").append(i).append(" about topic ").append(random.nextInt(50)).append('.');
+            text.append(breaks[random.nextInt(breaks.length)]);
+        }
+        String whole = text.toString();
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            CountingModel model = new CountingModel();
+            ChunkPipeline pipeline = new ChunkPipeline("doc", model, 4);
+            int pos = 0;
+            while (pos < whole.length()) {
+                int end = Math.min(whole.length(), pos + 1 + random.nextInt(300));
+                pipeline.accept(whole.substring(pos, end));
+                pos = end;
+            }
+            pipeline.finish();
+
+            assertEquals(RagService.chunkText(whole), texts(pipeline.segments()));
+            assertEquals(pipeline.segments().size(), pipeline.embeddings().size());
+            assertEquals("doc", pipeline.segments().get(0).metadata().getString("docId"));
+        }
+    }
+
+    @Test
+    void testPageRangesMatchWholePdf() throws Exception {
+        byte[] pdf = pdf(23);
+        String whole;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            whole = new PDFTextStripper().getText(document);
+        }
+
+        assertEquals(whole, new PdfParseStrategy(4).extractText(pdf));
+
+        ChunkPipeline pipeline = new ChunkPipeline("book.pdf", new CountingModel(), 2);
+        new PdfParseStrategy(3).extractText(pdf, pipeline);
+        pipeline.finish();
+        assertEquals(RagService.chunkText(whole), texts(pipeline.segments()));
+    }
+
+    private static byte[] pdf(int pages) throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Page " + p + " heading.");
+                    content.newLineAtOffset(0, -40);
+                    content.showText("Body text of page " + p + ", with a second sentence.");
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> texts(List<TextSegment> segments) {
+        List<String> texts = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            texts.add(segment.text());
+        }
+        return texts;
+    }
+
+    private static class CountingModel implements EmbeddingModel {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : segments) {
+                embeddings.add(Embedding.from(new float[] {segment.text().length(), 1}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
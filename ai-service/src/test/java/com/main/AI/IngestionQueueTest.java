@@ -0,0 +1,92 @@
+package com.main.AI;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uploads run on the ingestion workers and report their stage until they finish
+ */
+class IngestionQueueTest {
+
+    @Test
+    void testJobRunsThroughStagesToDone() throws Exception {
+        IngestionQueue queue = new IngestionQueue(1, 4, 10);
+        IngestionJob job = queue.submit(new IngestionJob("t1", "notes.txt", 10), j -> {
+            j.enter(IngestionJob.Stage.PARSING);
+            j.enter(IngestionJob.Stage.EMBEDDING);
+            j.setChunks(3);
+        });
+
+        awaitFinished(job);
+        assertEquals(IngestionJob.Stage.DONE, job.getStage());
+        assertEquals(3, job.getChunks());
+        assertSame(job, queue.get(job.getId()));
+        assertEquals(1L, queue.stats().get("completed"));
+    }
+
+    @Test
+    void testOverlappingStagesOnlyMoveForward() {
+        IngestionJob job = new IngestionJob("t1", "book.pdf", 10);
+        job.enter(IngestionJob.Stage.PARSING);
+        job.advance(IngestionJob.Stage.CHUNKING);
+        assertEquals("chunking", job.toMap().get("status"));
+
+        job.advance(IngestionJob.Stage.EMBEDDING);
+        job.advance(IngestionJob.Stage.CHUNKING);
+        assertEquals(IngestionJob.Stage.EMBEDDING, job.getStage());
+        assertEquals(0.4, job.toMap().get("progress"));
+    }
+
+    @Test
+    void testFailureIsRecordedOnTheJob() throws Exception {
+        IngestionQueue queue = new IngestionQueue(1, 4, 10);
+        IngestionJob job = queue.submit(new IngestionJob("t1", "broken.pdf", 10), j -> {
+            j.enter(IngestionJob.Stage.PARSING);
+            throw new IllegalStateException("bad pdf");
+        });
+
+        awaitFinished(job);
+        assertEquals(IngestionJob.Stage.FAILED, job.getStage());
+        assertTrue(job.getError().contains("bad pdf"));
+        assertEquals(1L, queue.stats().get("failed"));
+    }
+
+    @Test
+    void testFullQueueRejectsAndOldJobsAreForgotten() throws Exception {
+        IngestionQueue queue = new IngestionQueue(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        IngestionJob running = queue.submit(new IngestionJob("t1", "a.txt", 1), j -> release.await());
+        IngestionJob waiting = queue.submit(new IngestionJob("t1", "b.txt", 1), j -> { });
+        awaitStarted(queue);
+
+        IngestionJob rejected = new IngestionJob("t1", "c.txt", 1);
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(rejected, j -> { }));
+        assertNull(queue.get(rejected.getId()));
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(waiting);
+        assertNull(queue.get(running.getId()));
+        assertSame(waiting, queue.get(waiting.getId()));
+    }
+
+    private static void awaitStarted(IngestionQueue queue) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Integer.valueOf(1).equals(queue.stats().get("queued")) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitFinished(IngestionJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.getStage().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(job.getStage().isFinished(), "job did not finish");
+    }
+}
@@ -0,0 +1,30 @@
+package com.main.AI;
+
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reciprocal-rank fusion of the semantic and lexical rankings
+ */
+class RagServiceTest {
+
+    @Test
+    void testFusionFavoursChunksBothRetrieversFound() {
+        List<VectorDbManager.SearchResult> semantic = List.of(result("a"), result("b"), result("c"));
+        List<VectorDbManager.SearchResult> lexical = List.of(result("d"), result("c"));
+
+        List<VectorDbManager.SearchResult> fused = RagService.fuse(3, semantic, lexical);
+
+        assertEquals(List.of("c", "a", "d"), fused.stream().map(VectorDbManager.SearchResult::getId).toList());
+        assertEquals(1.0 / 63 + 1.0 / 62, fused.get(0).getScore(), 1e-12);
+        assertEquals("text c", fused.get(0).getText());
+    }
+
+    private static VectorDbManager.SearchResult result(String id) {
+        return new VectorDbManager.SearchResult(id, TextSegment.from("text " + id), 0.5);
+    }
+}
@@ -0,0 +1,119 @@
+package com.main.AI;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The streaming chunker makes exactly the chunks of the regex splitter it replaced, however
+ * the text is cut into pieces
+ */
+class StreamingChunkerTest {
+
+    private static final String[] TOKENS = {
+            "word", "Longerword", "a", "x.", "end!", "why?", "3.14", ".", "?!", " ", "  ", "\t", "\n", "\r\n",
+            "\n\n", "\r\n\r\n", "\r", "\n\r\n", "\u000B", "\f", "\u0001", "\n \n", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"};
+
+    @Test
+    void testMatchesRegexSplitter() throws Exception {
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            StringBuilder text = new StringBuilder();
+            int tokens = random.nextInt(300);
+            for (int i = 0; i < tokens; i++) {
+                text.append(TOKENS[random.nextInt(TOKENS.length)]);
+                if (random.nextInt(3) == 0) {
+                    text.append(' ');
+                }
+            }
+            String whole = text.toString();
+            int maxChars = 5 + random.nextInt(60);
+            List<String> expected = regexChunks(whole, maxChars);
+
+            List<String> chunks = new ArrayList<>();
+            StreamingChunker.chunk(whole, maxChars, chunks::add);
+            assertEquals(expected, chunks, () -> "text: " + escape(whole));
+
+            chunks.clear();
+            StreamingChunker pieces = new StreamingChunker(maxChars, chunks::add);
+            int pos = 0;
+            while (pos < whole.length()) {
+                int end = Math.min(whole.length(), pos + random.nextInt(8));
+                pieces.append(whole.substring(pos, end));
+                pos = end;
+            }
+            pieces.finish();
+            assertEquals(expected, chunks, () -> "pieces of: " + escape(whole));
+
+            chunks.clear();
+            StreamingChunker.chunk(new StringReader(whole), maxChars, chunks::add);
+            assertEquals(expected, chunks);
+        }
+    }
+
+    @Test
+    void testChunkTextKeepsThousandCharLimit() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append("Sentence number ").append(i).append(" is here. ");
+            if (i % 40 == 39) {
+                text.append("\n\n");
+            }
+        }
+        assertEquals(regexChunks(text.toString(), 1000), RagService.chunkText(text.toString()));
+        assertTrue(RagService.chunkText("  \n\n \r\n ").isEmpty());
+    }
+
+    // The splitter chunkText used before the streaming chunker
+    private static List<String> regexChunks(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) return chunks;
+
+        for (String para : text.split("(\\r?\\n){2,}")) {
+            String p = para.trim();
+            if (p.isEmpty()) continue;
+            if (p.length() <= maxChars) {
+                chunks.add(p);
+                continue;
+            }
+
+            StringBuilder current = new StringBuilder();
+            for (String s : p.split("(?<=[.!?])\\s+")) {
+                String sent = s.trim();
+                if (sent.isEmpty()) continue;
+                if (sent.length() > maxChars) {
+                    if (current.length() > 0) {
+                        chunks.add(current.toString().trim());
+                        current.setLength(0);
+                    }
+                    int idx = 0;
+                    while (idx < sent.length()) {
+                        int end = Math.min(idx + maxChars, sent.length());
+                        chunks.add(sent.substring(idx, end).trim());
+                        idx = end;
+                    }
+                    continue;
+                }
+                if (current.length() > 0 && current.length() + 1 + sent.length() > maxChars) {
+                    chunks.add(current.toString().trim());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) current.append(' ');
+                current.append(sent);
+            }
+            if (current.length() > 0) {
+                chunks.add(current.toString().trim());
+            }
+        }
+        return chunks;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t");
+    }
+}
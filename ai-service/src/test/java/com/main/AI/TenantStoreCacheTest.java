@@ -0,0 +1,102 @@
+package com.main.AI;
+
+import com.main.AI.store.IndexConfig;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tenants move between hot, warm and cold with the memory budget and idle time
+ */
+class TenantStoreCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testBudgetDemotesLeastRecentlyUsedHotTenant() {
+        TenantStoreCache cache = new TenantStoreCache(150, 0, 0);
+        TenantStore a = loaded("a");
+        TenantStore b = loaded("b");
+        cache.put(a, 100);
+        cache.put(b, 100);
+        assertFalse(a.isResident());
+        assertTrue(a.isLoaded());
+        assertEquals(TenantStoreCache.Tier.WARM, cache.recordHit("a"));
+        assertEquals(1, tiers(cache).get("hot"));
+
+        // Promoting a pushes the budget over again, so b goes warm in its place
+        cache.promoted("a", 2_000_000);
+        assertEquals(TenantStoreCache.Tier.HOT, cache.recordHit("a"));
+        assertEquals(TenantStoreCache.Tier.WARM, cache.recordHit("b"));
+        assertEquals(2L, cache.stats(2).get("demotions"));
+    }
+
+    @Test
+    void testIdleTenantsCoolDown() throws Exception {
+        TenantStoreCache cache = new TenantStoreCache(Long.MAX_VALUE, 1, 1);
+        TenantStore a = loaded("a");
+        cache.put(a, 100);
+        Thread.sleep(5);
+        cache.sweep();
+        assertEquals(TenantStoreCache.Tier.WARM, cache.recordHit("a"));
+
+        Thread.sleep(5);
+        cache.sweep();
+        assertFalse(a.isLoaded());
+        assertEquals(Map.of("hot", 0, "warm", 0, "cold", 1), tiers(cache));
+        assertEquals(1L, cache.stats(1).get("evictions"));
+    }
+
+    @Test
+    void testInt8TenantWeighsOnlyItsCodes() {
+        Random random = new Random(5);
+        List<TextSegment> segments = new ArrayList<>();
+        List<Embedding> embeddings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            float[] vector = new float[256];
+            for (int d = 0; d < vector.length; d++) vector[d] = (float) random.nextGaussian();
+            segments.add(new TextSegment("chunk " + i, new Metadata()));
+            embeddings.add(Embedding.from(vector));
+        }
+        for (IndexConfig config : List.of(IndexConfig.flat(), IndexConfig.int8(2))) {
+            String base = dir.resolve(config.type().name()).toString();
+            TenantStore written = new TenantStore("t", base, null, config, null);
+            written.load();
+            written.getDb().addEmbedded(segments, embeddings);
+            written.writeSnapshot();
+            written.switchToSnapshot();
+        }
+
+        long snapshotBytes = new File(dir.resolve("FLAT") + ".vdb").length();
+        assertEquals(snapshotBytes, new TenantStore("t", dir.resolve("FLAT").toString(), null, IndexConfig.flat(), null).load());
+        TenantStore quantized = new TenantStore("t", dir.resolve("INT8").toString(), null, IndexConfig.int8(2), null);
+        long weight = quantized.load();
+        assertEquals(200 * (256 + Float.BYTES), weight);
+        assertTrue(weight < snapshotBytes / 3);
+        assertEquals(weight, quantized.warmBytes());
+    }
+
+    private TenantStore loaded(String id) {
+        TenantStore store = new TenantStore(id, dir.resolve(id).toString(), null, IndexConfig.flat(), null);
+        store.load();
+        store.makeResident();
+        return store;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> tiers(TenantStoreCache cache) {
+        return (Map<String, Object>) cache.stats(1).get("tiers");
+    }
+}
@@ -0,0 +1,67 @@
+package com.main.AI;
+
+import com.main.AI.store.IndexConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tenant handles exist only while their tenant is loaded
+ */
+class TenantStoreRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testUnknownTenantsLeaveNoHandle() throws Exception {
+        TenantStoreRegistry registry = registry(new TenantStoreCache(Long.MAX_VALUE, 0, 0));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(List.of(), registry.read("stranger-" + i, store -> store.getDb().retrieveDocuments()));
+        }
+        assertEquals(0, registry.handleCount());
+
+        registry.write("a", store -> {
+            registry.save(store);
+            return null;
+        });
+        assertEquals(1, registry.handleCount());
+        assertTrue(registry.read("a", TenantStore::isLoaded));
+        assertEquals(1, registry.handleCount());
+
+        registry.delete("a");
+        assertEquals(0, registry.handleCount());
+        assertFalse(registry.read("a", TenantStore::isLoaded));
+        assertEquals(0, registry.handleCount());
+    }
+
+    @Test
+    void testUnloadedTenantDropsItsHandle() throws Exception {
+        TenantStoreCache cache = new TenantStoreCache(Long.MAX_VALUE, 1, 1);
+        TenantStoreRegistry registry = registry(cache);
+        TenantStore first = registry.write("a", store -> {
+            registry.save(store);
+            return store;
+        });
+        Thread.sleep(5);
+        cache.sweep();
+        Thread.sleep(5);
+        cache.sweep();
+        assertEquals(0, registry.handleCount());
+        assertTrue(first.isRetired());
+
+        // The tenant is still on disk, so reading it loads a fresh handle
+        TenantStore second = registry.read("a", store -> store);
+        assertNotSame(first, second);
+        assertTrue(second.isLoaded());
+        assertEquals(1, registry.handleCount());
+    }
+
+    private TenantStoreRegistry registry(TenantStoreCache cache) {
+        return new TenantStoreRegistry(dir + "/", null, IndexConfig.flat(), null, cache, Long.MAX_VALUE, 1.0);
+    }
+}
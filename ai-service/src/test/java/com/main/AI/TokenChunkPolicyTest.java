@@ -0,0 +1,66 @@
+package com.main.AI;
+
+import dev.langchain4j.model.embedding.TokenCountEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token-budgeted chunks stay within the model window and overlap their neighbours
+ */
+class TokenChunkPolicyTest {
+
+    // One token per word plus [CLS] and [SEP]
+    private static final TokenCountEstimator WORDS = text -> (text.isBlank() ? 0 : text.trim().split("\\s+").length) + 2;
+
+    @Test
+    void testChunksFitWindowAndOverlap() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            text.append("Sentence ").append(i).append(" has five words.");
+            text.append(i % 7 == 6 ? "\n\n" : " ");
+        }
+        List<String> chunks = chunk(text.toString(), 22, 8);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(WORDS.estimateTokenCount(chunk) <= 22, chunk);
+        }
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1);
+            String lastSentence = previous.substring(previous.lastIndexOf("Sentence "));
+            assertTrue(chunks.get(i).startsWith(lastSentence), "no overlap before: " + chunks.get(i));
+        }
+        String all = String.join(" ", chunks);
+        for (int i = 0; i < 60; i++) {
+            assertTrue(all.contains("Sentence " + i + " has"), "lost sentence " + i);
+        }
+        assertTrue(all.contains("words.\n\nSentence 7 has"), "paragraph break kept inside a chunk");
+    }
+
+    @Test
+    void testLongSentenceIsCutBetweenWords() {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sentence.append("w").append(i).append(' ');
+        }
+        List<String> chunks = chunk(sentence.toString().trim() + ".", 12, 0);
+
+        assertEquals(5, chunks.size());
+        for (String chunk : chunks) {
+            assertEquals(12, WORDS.estimateTokenCount(chunk));
+        }
+        assertTrue(chunks.get(4).endsWith("w49."));
+    }
+
+    private static List<String> chunk(String text, int maxTokens, int overlapTokens) {
+        List<String> chunks = new ArrayList<>();
+        StreamingChunker chunker = new StreamingChunker(new TokenChunkPolicy(WORDS, maxTokens, overlapTokens), chunks::add);
+        chunker.append(text);
+        chunker.finish();
+        return chunks;
+    }
+}
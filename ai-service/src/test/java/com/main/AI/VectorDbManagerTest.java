@@ -0,0 +1,152 @@
+package com.main.AI;
+
+import com.main.AI.store.IndexConfig;
+import com.main.AI.store.SearchFilter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Document-level operations of a tenant's store, through the log and snapshot
+ */
+class VectorDbManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDeleteDocumentSurvivesReplayAndCompaction() {
+        String snapshot = dir.resolve("t.vdb").toString();
+        String log = dir.resolve("t.log").toString();
+
+        VectorDbManager db = new VectorDbManager(new LengthModel(), IndexConfig.flat());
+        db.openLog(log);
+        db.addSegments(List.of(chunk("one", "a.txt"), chunk("three", "a.txt"), chunk("fives", "b.txt")));
+        db.saveToFile(snapshot);
+        db.truncateLog();
+
+        assertEquals(2, db.deleteDocument("a.txt"));
+        assertEquals(0, db.deleteDocument("a.txt"));
+        assertEquals(List.of("b.txt"), db.retrieveDocuments());
+        db.closeLog();
+
+        // The tombstones in the log hide the snapshot's rows
+        VectorDbManager reopened = new VectorDbManager(new LengthModel(), IndexConfig.flat());
+        reopened.loadFromFile(snapshot);
+        reopened.openLog(log);
+        assertEquals(List.of("b.txt"), reopened.retrieveDocuments());
+        assertEquals(2, reopened.getStore().deletedRows());
+
+        // Compacting drops them for good
+        reopened.saveToFile(snapshot);
+        reopened.loadFromFile(snapshot);
+        reopened.truncateLog();
+        assertEquals(1, reopened.getStore().rowCount());
+        assertEquals(List.of("b.txt"), reopened.retrieveDocuments());
+        reopened.closeLog();
+    }
+
+    @Test
+    void testFilteredSearchOnlyScoresSelectedDocuments() {
+        String snapshot = dir.resolve("f.vdb").toString();
+        VectorDbManager db = new VectorDbManager(new LengthModel(), IndexConfig.flat());
+        db.addSegments(List.of(chunk("aaaa", "a.txt", 100L), chunk("bbbb", "b.txt", 200L), chunk("cccc", "c.txt", 300L)));
+        db.deleteSegment(db.getCatalog().get("a.txt").chunkIds().iterator().next());
+        db.saveToFile(snapshot);
+        db.loadFromFile(snapshot);
+        db.addSegments(List.of(chunk("dddd", "d.txt", 400L)));
+
+        Embedding query = Embedding.from(new float[] {4, 1});
+        assertEquals(3, db.search(query, 10, 0.0).size());
+        assertEquals(List.of("bbbb"), texts(db.search(query, 10, 0.0,
+                new SearchFilter(Set.of("b.txt", "a.txt"), null, null))));
+        assertEquals(List.of("cccc", "dddd"), sorted(texts(db.search(query, 10, 0.0,
+                new SearchFilter(null, 250L, null)))));
+        assertEquals(List.of("dddd"), texts(db.search(query, 10, 0.0,
+                new SearchFilter(Set.of("b.txt", "d.txt"), 300L, 500L))));
+        assertTrue(db.search(query, 10, 0.0, new SearchFilter(Set.of("missing"), null, null)).isEmpty());
+    }
+
+    private static List<String> texts(List<VectorDbManager.SearchResult> results) {
+        List<String> texts = new ArrayList<>();
+        for (VectorDbManager.SearchResult result : results) texts.add(result.getText());
+        return texts;
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    @Test
+    void testNearDuplicateChunksAreDroppedWithinDocument() {
+        String footer = "Department of Computer Science, Lecture notes for CS 101, page footer, do not distribute";
+        VectorDbManager db = new VectorDbManager(new LengthModel(), IndexConfig.flat().withDuplicateSimilarity(0.95));
+        List<String> ids = db.addSegments(List.of(
+                chunk("Sorting algorithms compare elements and reorder them by key", "a.pdf"),
+                chunk(footer, "a.pdf"),
+                chunk(footer.toUpperCase(), "a.pdf")));
+        assertEquals(2, ids.size());
+
+        // Another document keeps its own copy of a shared chunk, repeated only once
+        ids = db.addSegments(List.of(chunk(footer, "b.pdf"), chunk(footer + ".", "b.pdf")));
+        assertEquals(1, ids.size());
+        assertEquals(Set.of("a.pdf", "b.pdf"), Set.copyOf(db.retrieveDocuments()));
+
+        // Re-adding text the document already has adds nothing
+        assertEquals(0, db.addSegments(List.of(chunk(footer, "b.pdf"))).size());
+    }
+
+    @Test
+    void testSharedChunkSurvivesDeletingOriginalDocument() {
+        String footer = "Department of Computer Science, Lecture notes for CS 101, page footer, do not distribute";
+        VectorDbManager db = new VectorDbManager(new LengthModel(), IndexConfig.flat().withDuplicateSimilarity(0.95));
+        db.addSegments(List.of(chunk("Notes of version one", "notes_v1.pdf"), chunk(footer, "notes_v1.pdf")));
+        db.addSegments(List.of(chunk("Notes of version two", "notes_v2.pdf"), chunk(footer, "notes_v2.pdf")));
+
+        assertEquals(2, db.deleteDocument("notes_v1.pdf"));
+
+        Embedding query = db.getEmbeddingModel().embed(footer).content();
+        List<VectorDbManager.SearchResult> results =
+                db.search(query, 5, 0.0, new SearchFilter(Set.of("notes_v2.pdf"), null, null));
+        assertEquals(2, results.size());
+        assertEquals(footer, results.get(0).getText());
+        assertEquals(2, db.getCatalog().get("notes_v2.pdf").chunkCount());
+    }
+
+    private static TextSegment chunk(String text, String docId) {
+        Metadata metadata = new Metadata();
+        metadata.put("docId", docId);
+        return new TextSegment(text, metadata);
+    }
+
+    private static TextSegment chunk(String text, String docId, long uploadedAt) {
+        TextSegment segment = chunk(text, docId);
+        segment.metadata().put("uploadedAt", uploadedAt);
+        return segment;
+    }
+
+    // Embeds a text as [length, 1]
+    private static class LengthModel implements EmbeddingModel {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : segments) {
+                embeddings.add(Embedding.from(new float[] {segment.text().length(), 1}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
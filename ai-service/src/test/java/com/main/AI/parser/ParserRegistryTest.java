@@ -0,0 +1,66 @@
+package com.main.AI.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Strategies are found by extension or MIME type and shared safely between uploads
+ */
+class ParserRegistryTest {
+
+    @Test
+    void testLookupByExtensionThenMimeType() {
+        TxtParseStrategy txt = new TxtParseStrategy();
+        PdfParseStrategy pdf = new PdfParseStrategy();
+        ParserRegistry empty = ParserRegistry.empty();
+        ParserRegistry registry = empty
+                .with(txt, Set.of("txt", "md"), Set.of("text/plain"))
+                .with(pdf, Set.of("pdf"), Set.of("application/pdf"));
+
+        assertSame(txt, registry.find("notes.MD", null));
+        assertSame(pdf, registry.find("week.1.pdf", "text/plain"));
+        assertSame(txt, registry.find("README", "text/plain; charset=UTF-8"));
+        assertSame(pdf, registry.find("scan.bin", "application/PDF"));
+        assertNull(registry.find("slides.pptx", "application/octet-stream"));
+        assertNull(registry.find(null, null));
+        assertNull(empty.find("notes.txt", null));
+        assertEquals(Set.of("md", "pdf", "txt"), registry.extensions());
+    }
+
+    @Test
+    void testSharedStrategyParsesConcurrently() throws Exception {
+        ParserRegistry registry = ParserRegistry.empty().with(new TxtParseStrategy(), Set.of("txt"), Set.of());
+        ParserExecutor executor = new ParserExecutor(4, 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                String text = "document " + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return registry.find("d.txt", null).extractText(text.getBytes(StandardCharsets.UTF_8));
+                }));
+                if (i == 3) {
+                    start.countDown();
+                }
+            }
+            for (int i = 0; i < 16; i++) {
+                assertEquals("document " + i, results.get(i).get());
+            }
+            // The queue holds one task, so the rest ran on this thread instead of being rejected
+            assertTrue((long) executor.stats().get("ranByCaller") > 0);
+            assertFalse(executor.ownsCurrentThread());
+            assertTrue(executor.submit(executor::ownsCurrentThread).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
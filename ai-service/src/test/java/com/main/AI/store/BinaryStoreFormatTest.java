@@ -0,0 +1,85 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the binary store format and the JSON converter
+ */
+class BinaryStoreFormatTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteAndOpenRoundTrip() throws Exception {
+        SegmentStore store = new SegmentStore();
+        Metadata meta = new Metadata();
+        meta.put("docId", "notes.pdf");
+        meta.put("page", 3);
+        store.add("a", Embedding.from(new float[]{1f, 0f, 0f}), new TextSegment("first", meta));
+        store.add("b", Embedding.from(new float[]{0f, 1f, 0f}), new TextSegment("second – ünïcödé", new Metadata()));
+        store.add("c", Embedding.from(new float[]{0f, 0f, 1f}), new TextSegment("third", new Metadata()));
+        store.remove("c");
+
+        Path file = dir.resolve("tenant.vdb");
+        BinaryStoreFormat.write(file, store);
+        assertTrue(BinaryStoreFormat.isBinary(file));
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(file));
+        assertEquals(2, reopened.size());
+        assertEquals(3, reopened.dimension());
+        assertEquals("a", reopened.id(0));
+        assertEquals("first", reopened.segment(0).text());
+        assertEquals("notes.pdf", reopened.segment(0).metadata().getString("docId"));
+        assertEquals(3, reopened.segment(0).metadata().getInteger("page"));
+        assertEquals("second – ünïcödé", reopened.segment(1).text());
+        assertArrayEquals(new float[]{0f, 1f, 0f}, reopened.vector(1));
+
+        List<EmbeddingMatch<TextSegment>> matches = reopened.search(Embedding.from(new float[]{0f, 1f, 0f}), 1, 0.0);
+        assertEquals("b", matches.get(0).embeddingId());
+        assertEquals(1.0, matches.get(0).score(), 1e-6);
+    }
+
+    @Test
+    void testMappedStoreAcceptsNewSegments() throws Exception {
+        SegmentStore store = new SegmentStore();
+        store.add("a", Embedding.from(new float[]{1f, 0f}), new TextSegment("first", new Metadata()));
+        Path file = dir.resolve("tenant.vdb");
+        BinaryStoreFormat.write(file, store);
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(file));
+        reopened.add("b", Embedding.from(new float[]{0f, 1f}), new TextSegment("second", new Metadata()));
+        assertTrue(reopened.remove("a"));
+        BinaryStoreFormat.write(file, reopened);
+
+        SegmentStore again = new SegmentStore(BinaryStoreFormat.open(file));
+        assertEquals(1, again.size());
+        assertEquals("b", again.id(0));
+    }
+
+    @Test
+    void testReadLegacyJson() throws Exception {
+        Path json = dir.resolve("tenant.db");
+        Files.writeString(json, "{\"entries\":[{\"id\":\"x\",\"embedding\":{\"vector\":[0.5,0.5]},"
+                + "\"embedded\":{\"text\":\"hello\",\"metadata\":{\"metadata\":{\"docId\":\"a.txt\"}}}}]}");
+
+        assertFalse(BinaryStoreFormat.isBinary(json));
+        SegmentStore store = StoreConverter.readJson(json);
+        assertEquals(1, store.size());
+        assertEquals("x", store.id(0));
+        assertEquals("hello", store.segment(0).text());
+        assertEquals("a.txt", store.segment(0).metadata().getString("docId"));
+        assertEquals(dir.resolve("tenant.vdb"), StoreConverter.binaryPath(json));
+    }
+}
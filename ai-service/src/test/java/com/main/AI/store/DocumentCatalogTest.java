@@ -0,0 +1,105 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The catalog follows adds and removes and is persisted with the snapshot
+ */
+class DocumentCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCatalogFollowsStoreChanges() {
+        SegmentStore store = new SegmentStore();
+        store.add("a1", vector(1), chunk("alpha", "a.pdf", 200L));
+        store.add("a2", vector(2), chunk("beta", "a.pdf", 100L));
+        store.add("b1", vector(3), chunk("gamma", "b.txt", 300L));
+
+        DocumentCatalog catalog = store.getCatalog();
+        assertEquals(List.of("a.pdf", "b.txt"), catalog.documentIds());
+        DocumentCatalog.Document a = catalog.get("a.pdf");
+        assertEquals(2, a.chunkCount());
+        assertEquals(9, a.bytes());
+        assertEquals(100L, a.uploadedAt());
+
+        store.remove("a1");
+        assertEquals(1, catalog.get("a.pdf").chunkCount());
+        store.remove("b1");
+        assertEquals(List.of("a.pdf"), catalog.documentIds());
+        store.removeAll();
+        assertTrue(catalog.documentIds().isEmpty());
+    }
+
+    @Test
+    void testCatalogIsReadBackWithItsSnapshot() throws Exception {
+        SegmentStore store = new SegmentStore();
+        store.add("a1", vector(1), chunk("alpha", "a.pdf", 100L));
+        store.add("b1", vector(2), chunk("beta", "b.txt", 200L));
+        store.remove("b1");
+
+        Path snapshot = dir.resolve("tenant.vdb");
+        long stamp = BinaryStoreFormat.write(snapshot, store);
+        store.getCatalog().write(DocumentCatalog.catalogPath(snapshot), stamp, store);
+
+        DocumentCatalog read = DocumentCatalog.read(DocumentCatalog.catalogPath(snapshot), stamp);
+        assertNotNull(read);
+        assertEquals(List.of("a.pdf"), read.documentIds());
+        assertTrue(read.get("a.pdf").chunkIds().contains("a1"));
+        assertNull(DocumentCatalog.read(DocumentCatalog.catalogPath(snapshot), stamp + 2));
+
+        // Without a catalog file the reopened store scans its rows
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        assertEquals(List.of("a.pdf"), reopened.getCatalog().documentIds());
+    }
+
+    @Test
+    void testNearestDocumentsByCentroid() throws Exception {
+        SegmentStore store = new SegmentStore();
+        store.add("a1", Embedding.from(new float[] {1, 0.1f, 0}), chunk("alpha", "a.pdf", 100L));
+        store.add("a2", Embedding.from(new float[] {1, -0.1f, 0}), chunk("beta", "a.pdf", 100L));
+        store.add("b1", Embedding.from(new float[] {0, 1, 0.1f}), chunk("gamma", "b.txt", 200L));
+        store.add("c1", Embedding.from(new float[] {0, 0, 1}), chunk("delta", "c.txt", 300L));
+
+        DocumentCatalog catalog = store.getCatalog();
+        float[] query = {1, 0, 0};
+        BitSet rows = catalog.nearestDocumentRows(query, 1, null);
+        assertEquals(BitSet.valueOf(new long[] {0b0011}), rows);
+        // The filter drops a.pdf before ranking, so the next nearest document is picked
+        rows = catalog.nearestDocumentRows(query, 1, new SearchFilter(Set.of("b.txt", "c.txt"), null, null));
+        assertEquals(1, rows.cardinality());
+        assertEquals(1.0, CentroidRecall.recall(store, List.of(query), 2, 1), 1e-9);
+
+        // Centroids survive a removal and a round trip through the catalog file
+        store.remove("a1");
+        Path snapshot = dir.resolve("tenant.vdb");
+        long stamp = BinaryStoreFormat.write(snapshot, store);
+        catalog.write(DocumentCatalog.catalogPath(snapshot), stamp, store);
+        DocumentCatalog read = DocumentCatalog.read(DocumentCatalog.catalogPath(snapshot), stamp);
+        assertArrayEquals(catalog.get("a.pdf").centroid(), read.get("a.pdf").centroid(), 1e-6f);
+        assertArrayEquals(store.vector(1), read.get("a.pdf").centroid(), 1e-6f);
+    }
+
+    private static TextSegment chunk(String text, String docId, long uploadedAt) {
+        Metadata metadata = new Metadata();
+        metadata.put(DocumentCatalog.DOC_ID, docId);
+        metadata.put(DocumentCatalog.UPLOADED_AT, uploadedAt);
+        return new TextSegment(text, metadata);
+    }
+
+    private static Embedding vector(float x) {
+        return Embedding.from(new float[] {x, 1, 0});
+    }
+}
@@ -0,0 +1,76 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharded parallel scans return the same top-k as the sequential scan
+ */
+class FlatIndexTest {
+
+    private static final int DIMENSION = 24;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testShardedSearchMatchesSequential() throws Exception {
+        Random random = new Random(5);
+        SegmentStore written = new SegmentStore();
+        for (int i = 0; i < 1500; i++) {
+            written.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        Path snapshot = dir.resolve("tenant.vdb");
+        BinaryStoreFormat.write(snapshot, written);
+
+        // Mapped base rows plus a heap tail, with deletions on both sides of the split
+        SegmentStore store = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        for (int i = 1500; i < 2000; i++) {
+            store.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        for (int i = 0; i < 2000; i += 7) {
+            store.remove("s" + i);
+        }
+
+        FlatIndex sequential = new FlatIndex(store);
+        FlatIndex sharded = new FlatIndex(store, 100, 0);
+        BitSet filter = new BitSet();
+        for (int row = 0; row < store.rowCount(); row += 3) {
+            filter.set(row);
+        }
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomVector(random);
+            assertEquals(rows(sequential.search(query, 10, 0.0)), rows(sharded.search(query, 10, 0.0)));
+            assertEquals(rows(sequential.search(query, 10, 0.0, filter)), rows(sharded.search(query, 10, 0.0, filter)));
+        }
+        float[] query = randomVector(random);
+        assertEquals(rows(sequential.search(query, 3, 0.7)), rows(sharded.search(query, 3, 0.7)));
+    }
+
+    private static List<Integer> rows(List<ScoredRow> hits) {
+        List<Integer> rows = new ArrayList<>();
+        for (ScoredRow hit : hits) {
+            rows.add(hit.row());
+        }
+        return rows;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+}
@@ -0,0 +1,99 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recall, persistence and parameter validation tests for the HNSW index
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecallAgainstExactSearch() throws Exception {
+        Random random = new Random(7);
+        SegmentStore store = new SegmentStore();
+        store.setIndex(new IndexConfig(IndexConfig.Type.HNSW, 16, 200, 64).create(store, null));
+        for (int i = 0; i < 2000; i++) {
+            store.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        for (int i = 0; i < 2000; i += 10) {
+            store.remove("s" + i);
+        }
+
+        FlatIndex exact = new FlatIndex(store);
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> expected = rows(exact.search(query, 10, 0.0));
+            for (ScoredRow hit : store.getIndex().search(query, 10, 0.0)) {
+                assertFalse(store.isDeleted(hit.row()));
+                if (expected.contains(hit.row())) found++;
+            }
+        }
+        assertTrue(found >= queries * 10 * 0.9, "recall@10 was " + found / (queries * 10.0));
+    }
+
+    @Test
+    void testGraphIsReusedWithItsSnapshot() throws Exception {
+        Random random = new Random(11);
+        IndexConfig config = new IndexConfig(IndexConfig.Type.HNSW, 8, 100, 50);
+        SegmentStore store = new SegmentStore();
+        store.setIndex(config.create(store, null));
+        for (int i = 0; i < 300; i++) {
+            store.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        store.remove("s0");
+
+        Path snapshot = dir.resolve("tenant.vdb");
+        long stamp = BinaryStoreFormat.write(snapshot, store);
+        store.getIndex().write(IndexConfig.indexPath(snapshot), stamp);
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        assertNotNull(HnswIndex.read(IndexConfig.indexPath(snapshot), reopened, stamp, 8, 100, 50));
+        reopened.setIndex(config.create(reopened, snapshot));
+
+        float[] query = store.vector(5);
+        List<ScoredRow> hits = reopened.getIndex().search(query, 1, 0.0);
+        assertEquals("s5", reopened.id(hits.get(0).row()));
+    }
+
+    @Test
+    void testInvalidParametersAreRejected() {
+        SegmentStore store = new SegmentStore();
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(store, 1, 100, 50));
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(store, 0, 100, 50));
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(store, 8, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(store, 8, -1, 50));
+        assertThrows(IllegalArgumentException.class, () -> new IndexConfig(IndexConfig.Type.HNSW, 1, 100, 50));
+        assertDoesNotThrow(() -> new IndexConfig(IndexConfig.Type.FLAT, 0, 0, 0));
+    }
+
+    private static Set<Integer> rows(List<ScoredRow> hits) {
+        Set<Integer> rows = new HashSet<>();
+        for (ScoredRow hit : hits) rows.add(hit.row());
+        return rows;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
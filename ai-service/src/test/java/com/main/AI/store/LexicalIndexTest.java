@@ -0,0 +1,94 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BM25 ranking, incremental removal and persistence of the lexical index
+ */
+class LexicalIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testExactTermsRankFirst() {
+        SegmentStore store = store();
+        LexicalIndex index = store.getLexicalIndex();
+
+        List<ScoredRow> hits = index.search("What is CS101 about?", 10, null, store);
+        assertEquals(List.of("c1"), ids(store, hits));
+
+        hits = index.search("eigenvalues of a matrix", 10, null, store);
+        assertEquals("c3", store.id(hits.get(0).row()));
+        assertEquals(2, hits.size());
+
+        store.remove("c3");
+        assertEquals(List.of("c2"), ids(store, index.search("eigenvalues of a matrix", 10, null, store)));
+        assertTrue(index.search("the of is", 10, null, store).isEmpty());
+    }
+
+    @Test
+    void testHitsMatchingLittleOfTheQuestionAreDropped() {
+        SegmentStore store = store();
+        LexicalIndex index = store.getLexicalIndex();
+
+        assertEquals(List.of("c1"), ids(store, index.search("Tell me about CS101", 10, 0.3, null, store)));
+
+        // Only "programming" is in the corpus; the other terms count against both chunks it matches
+        String question = "Who teaches quantum chromodynamics and programming?";
+        assertEquals(2, index.search(question, 10, 0, null, store).size());
+        assertTrue(index.search(question, 10, 0.3, null, store).isEmpty());
+    }
+
+    @Test
+    void testIndexIsReadBackWithItsSnapshot() throws Exception {
+        SegmentStore store = store();
+        store.remove("c1");
+
+        Path snapshot = dir.resolve("tenant.vdb");
+        long stamp = BinaryStoreFormat.write(snapshot, store);
+        store.getLexicalIndex().write(LexicalIndex.indexPath(snapshot), stamp, store);
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        LexicalIndex read = LexicalIndex.read(LexicalIndex.indexPath(snapshot), stamp, reopened.rowCount());
+        assertNotNull(read);
+        assertNull(LexicalIndex.read(LexicalIndex.indexPath(snapshot), stamp + 2, reopened.rowCount()));
+
+        LexicalIndex scanned = LexicalIndex.scan(reopened);
+        for (String query : List.of("matrix eigenvalues", "cs101", "determinant")) {
+            List<ScoredRow> expected = scanned.search(query, 10, null, reopened);
+            List<ScoredRow> actual = read.search(query, 10, null, reopened);
+            assertEquals(ids(reopened, expected), ids(reopened, actual));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9);
+            }
+        }
+    }
+
+    private static SegmentStore store() {
+        SegmentStore store = new SegmentStore();
+        store.add("c1", vector(), new TextSegment("CS101 covers the basics of programming.", new Metadata()));
+        store.add("c2", vector(), new TextSegment("A matrix has eigenvalues; so does its transpose. "
+                + "Programming with a matrix library helps.", new Metadata()));
+        store.add("c3", vector(), new TextSegment("Eigenvalues of a matrix are the roots of its characteristic "
+                + "polynomial; eigenvalues multiply to the determinant.", new Metadata()));
+        return store;
+    }
+
+    private static List<String> ids(SegmentStore store, List<ScoredRow> hits) {
+        return hits.stream().map(hit -> store.id(hit.row())).toList();
+    }
+
+    private static Embedding vector() {
+        return Embedding.from(new float[] {1, 0});
+    }
+}
@@ -0,0 +1,40 @@
+package com.main.AI.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimHash fingerprints match near-identical text and only that
+ */
+class NearDuplicateIndexTest {
+
+    private static final String SLIDE = "Week 3 Recursion. A recursive function calls itself on a smaller input "
+            + "until it reaches a base case, which it answers directly without recursing. Every recursive "
+            + "definition needs at least one base case and must make progress towards it on each call.";
+
+    @Test
+    void testFindsNearDuplicatesOnly() {
+        NearDuplicateIndex index = new NearDuplicateIndex(NearDuplicateIndex.maxDistance(0.95));
+        index.added(0, SLIDE);
+        index.added(1, "Week 4 Sorting. Merge sort splits the list in half, sorts each half and merges them.");
+
+        assertEquals(0, index.findDuplicate(SLIDE));
+        assertEquals(0, index.findDuplicate(SLIDE.toLowerCase().replace(".", "")));
+        assertEquals(0, index.findDuplicate("  " + SLIDE.replace(" ", "\n") + "  "));
+        assertEquals(-1, index.findDuplicate("Week 5 Graphs. A graph is a set of vertices joined by edges."));
+        assertEquals(-1, index.findDuplicate("..."));
+
+        index.removed(0);
+        assertEquals(-1, index.findDuplicate(SLIDE));
+    }
+
+    @Test
+    void testSimilarityMapsToBits() {
+        assertEquals(0, NearDuplicateIndex.maxDistance(1.0));
+        assertEquals(3, NearDuplicateIndex.maxDistance(0.95));
+        assertEquals(15, NearDuplicateIndex.maxDistance(0.1));
+        assertEquals(0, NearDuplicateIndex.fingerprint(" \n-- "));
+        assertEquals(NearDuplicateIndex.fingerprint("Hello World"), NearDuplicateIndex.fingerprint("hello, world!"));
+    }
+}
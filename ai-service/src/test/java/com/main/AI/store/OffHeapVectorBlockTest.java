@@ -0,0 +1,64 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Off-heap rows survive growth and are accounted for until they are released
+ */
+class OffHeapVectorBlockTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRowsGrowAndAreReleased() {
+        long before = OffHeapMemory.allocatedBytes();
+        OffHeapVectorBlock block = new OffHeapVectorBlock(3);
+        for (int i = 0; i < 100; i++) {
+            block.append(new float[] {i, 1, 0});
+        }
+        assertEquals(100, block.size());
+        assertEquals(before + block.offHeapBytes(), OffHeapMemory.allocatedBytes());
+        assertTrue(block.offHeapBytes() >= 100 * 3 * Float.BYTES);
+
+        float[] row = new float[3];
+        block.copyRow(42, row);
+        float norm = (float) Math.sqrt(42 * 42 + 1);
+        assertArrayEquals(new float[] {42 / norm, 1 / norm, 0}, row, 1e-6f);
+        assertEquals(1.0, block.similarity(42, row), 1e-6);
+
+        block.close();
+        assertEquals(before, OffHeapMemory.allocatedBytes());
+        assertThrows(IllegalStateException.class, () -> block.append(new float[] {1, 0, 0}));
+    }
+
+    @Test
+    void testClosingStoreUnmapsSnapshot() throws Exception {
+        SegmentStore written = new SegmentStore();
+        written.add("a", Embedding.from(new float[] {1, 0}), new TextSegment("alpha", new Metadata()));
+        Path snapshot = dir.resolve("tenant.vdb");
+        BinaryStoreFormat.write(snapshot, written);
+        written.close();
+
+        long mapped = OffHeapMemory.mappedBytes();
+        long allocated = OffHeapMemory.allocatedBytes();
+        SegmentStore store = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        store.add("b", Embedding.from(new float[] {0, 1}), new TextSegment("beta", new Metadata()));
+        assertEquals(mapped + Files.size(snapshot), OffHeapMemory.mappedBytes());
+        assertEquals(allocated + store.offHeapBytes(), OffHeapMemory.allocatedBytes());
+        assertEquals("a", store.search(Embedding.from(new float[] {1, 0}), 1, 0).get(0).embeddingId());
+
+        store.close();
+        assertEquals(mapped, OffHeapMemory.mappedBytes());
+        assertEquals(allocated, OffHeapMemory.allocatedBytes());
+    }
+}
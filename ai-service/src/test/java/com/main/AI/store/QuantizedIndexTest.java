@@ -0,0 +1,92 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recall and persistence tests for the int8 index
+ */
+class QuantizedIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRerankedRecallAgainstExactSearch() throws Exception {
+        Random random = new Random(13);
+        SegmentStore store = new SegmentStore();
+        store.setIndex(IndexConfig.int8(4).create(store, null));
+        for (int i = 0; i < 2000; i++) {
+            store.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        for (int i = 0; i < 2000; i += 10) {
+            store.remove("s" + i);
+        }
+
+        FlatIndex exact = new FlatIndex(store);
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            List<ScoredRow> expected = exact.search(query, 10, 0.0);
+            List<ScoredRow> hits = store.getIndex().search(query, 10, 0.0);
+            Set<Integer> expectedRows = rows(expected);
+            for (ScoredRow hit : hits) {
+                assertFalse(store.isDeleted(hit.row()));
+                if (expectedRows.contains(hit.row())) found++;
+            }
+            // Re-ranked scores are the exact ones
+            assertEquals(expected.get(0).score(), hits.get(0).score(), 1e-6);
+        }
+        assertTrue(found >= queries * 10 * 0.95, "recall@10 was " + found / (queries * 10.0));
+    }
+
+    @Test
+    void testCodesAreReusedWithTheirSnapshot() throws Exception {
+        Random random = new Random(17);
+        IndexConfig config = IndexConfig.int8(2);
+        SegmentStore store = new SegmentStore();
+        store.setIndex(config.create(store, null));
+        for (int i = 0; i < 300; i++) {
+            store.add("s" + i, Embedding.from(randomVector(random)), new TextSegment("t" + i, new Metadata()));
+        }
+        store.remove("s0");
+
+        Path snapshot = dir.resolve("tenant.vdb");
+        long stamp = BinaryStoreFormat.write(snapshot, store);
+        store.getIndex().write(config.indexFile(snapshot), stamp);
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        assertNotNull(QuantizedIndex.read(IndexConfig.quantizedPath(snapshot), reopened, stamp, 2));
+        assertNull(QuantizedIndex.read(IndexConfig.quantizedPath(snapshot), reopened, stamp + 2, 2));
+        reopened.setIndex(config.create(reopened, snapshot));
+
+        List<ScoredRow> hits = reopened.getIndex().search(store.vector(5), 1, 0.0);
+        assertEquals("s5", reopened.id(hits.get(0).row()));
+    }
+
+    private static Set<Integer> rows(List<ScoredRow> hits) {
+        Set<Integer> rows = new HashSet<>();
+        for (ScoredRow hit : hits) rows.add(hit.row());
+        return rows;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
@@ -0,0 +1,68 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chunk text kept on disk reads back the same, compressed or not
+ */
+class SegmentBlobTest {
+
+    private static final String TEXT = "The mitochondria is the powerhouse of the cell. ".repeat(20);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testTailTextIsReadFromBlob() throws Exception {
+        SegmentStore store = new SegmentStore();
+        store.add("a", Embedding.from(new float[] {1, 0}), chunk("on heap first", "a.pdf"));
+        store.setTextBlob(SegmentBlob.create(dir.resolve("tenant.txt"), true));
+        store.add("b", Embedding.from(new float[] {0, 1}), chunk(TEXT, "b.pdf"));
+
+        assertEquals("on heap first", store.segment(0).text());
+        assertEquals(TEXT, store.segment(1).text());
+        assertEquals("b.pdf", store.segment(1).metadata().getString(DocumentCatalog.DOC_ID));
+        assertTrue(Files.size(dir.resolve("tenant.txt")) < TEXT.length(), "long text should be deflated");
+        assertEquals("b", store.search(Embedding.from(new float[] {0, 1}), 1, 0).get(0).embeddingId());
+
+        // Removal still sees the text the catalog and BM25 index need
+        assertTrue(store.remove("b"));
+        assertEquals(1, store.getCatalog().size());
+        store.close();
+    }
+
+    @Test
+    void testCompressedSnapshotRoundTrip() throws Exception {
+        SegmentStore store = new SegmentStore();
+        store.add("a", Embedding.from(new float[] {1, 0}), chunk(TEXT, "a.pdf"));
+        store.add("b", Embedding.from(new float[] {0, 1}), chunk("x", "b.pdf"));
+
+        Path plain = dir.resolve("plain.vdb");
+        Path compressed = dir.resolve("compressed.vdb");
+        BinaryStoreFormat.write(plain, store);
+        BinaryStoreFormat.write(compressed, store, true);
+        assertTrue(Files.size(compressed) < Files.size(plain));
+
+        try (SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(compressed))) {
+            assertEquals("a", reopened.id(0));
+            assertEquals(TEXT, reopened.segment(0).text());
+            assertEquals("x", reopened.segment(1).text());
+            assertEquals("b.pdf", reopened.segment(1).metadata().getString(DocumentCatalog.DOC_ID));
+        }
+    }
+
+    private static TextSegment chunk(String text, String docId) {
+        Metadata metadata = new Metadata();
+        metadata.put(DocumentCatalog.DOC_ID, docId);
+        return new TextSegment(text, metadata);
+    }
+}
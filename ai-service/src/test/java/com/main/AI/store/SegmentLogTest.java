@@ -0,0 +1,74 @@
+package com.main.AI.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replay tests for the append-only segment log
+ */
+class SegmentLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayAddsAndTombstones() throws Exception {
+        Path path = dir.resolve("tenant.log");
+        try (SegmentLog log = SegmentLog.open(path, new SegmentStore())) {
+            log.appendAdd("a", Embedding.from(new float[]{1f, 0f}), new TextSegment("first", Metadata.from("docId", "x.txt")));
+            log.appendAdd("b", Embedding.from(new float[]{0f, 1f}), new TextSegment("second", new Metadata()));
+            log.appendDelete("a");
+        }
+
+        SegmentStore store = new SegmentStore();
+        SegmentLog.open(path, store).close();
+        assertEquals(1, store.size());
+        assertEquals("b", store.id(1));
+        assertTrue(store.isDeleted(0));
+    }
+
+    @Test
+    void testReplayOverSnapshotIsIdempotent() throws Exception {
+        SegmentStore store = new SegmentStore();
+        Path path = dir.resolve("tenant.log");
+        try (SegmentLog log = SegmentLog.open(path, store)) {
+            store.add("a", Embedding.from(new float[]{1f, 0f}), new TextSegment("first", new Metadata()));
+            log.appendAdd("a", Embedding.from(new float[]{1f, 0f}), new TextSegment("first", new Metadata()));
+        }
+        Path snapshot = dir.resolve("tenant.vdb");
+        BinaryStoreFormat.write(snapshot, store);
+
+        SegmentStore reopened = new SegmentStore(BinaryStoreFormat.open(snapshot));
+        SegmentLog.open(path, reopened).close();
+        assertEquals(1, reopened.size());
+    }
+
+    @Test
+    void testTornTailIsDropped() throws Exception {
+        Path path = dir.resolve("tenant.log");
+        try (SegmentLog log = SegmentLog.open(path, new SegmentStore())) {
+            log.appendAdd("a", Embedding.from(new float[]{1f, 0f}), new TextSegment("first", new Metadata()));
+            log.appendAdd("b", Embedding.from(new float[]{0f, 1f}), new TextSegment("second", new Metadata()));
+        }
+        long intact = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 3);
+        }
+
+        SegmentStore store = new SegmentStore();
+        SegmentLog.open(path, store).close();
+        assertEquals(1, store.size());
+        assertEquals("a", store.id(0));
+        assertTrue(Files.size(path) < intact - 3);
+    }
+}
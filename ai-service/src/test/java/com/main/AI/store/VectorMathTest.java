@@ -0,0 +1,71 @@
+package com.main.AI.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the search kernel in use against the scalar one
+ */
+class VectorMathTest {
+
+    private final ScalarDotKernel scalar = new ScalarDotKernel();
+
+    @Test
+    void testKernelMatchesScalarOnArrays() {
+        Random random = new Random(3);
+        for (int length : new int[] {1, 7, 16, 33, 384}) {
+            float[] rows = randomVector(random, length * 3);
+            float[] query = randomVector(random, length);
+            for (int row = 0; row < 3; row++) {
+                assertEquals(scalar.dot(rows, row * length, query, length),
+                        VectorMath.dot(rows, row * length, query, length), 1e-4, VectorMath.kernelName());
+            }
+        }
+    }
+
+    @Test
+    void testKernelMatchesScalarOnSegments() {
+        Random random = new Random(5);
+        int length = 37;
+        float[] row = randomVector(random, length);
+        float[] query = randomVector(random, length);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 + length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(4);
+        for (float v : row) buffer.putFloat(v);
+        MemorySegment segment = MemorySegment.ofBuffer(buffer.clear());
+
+        assertEquals(scalar.dot(row, 0, query, length), VectorMath.dot(segment, 4, query, length), 1e-4);
+        assertEquals(scalar.dot(row, 0, query, length), scalar.dot(segment, 4, query, length), 1e-4);
+    }
+
+    @Test
+    void testKernelMatchesScalarOnCodes() {
+        Random random = new Random(9);
+        for (int length : new int[] {5, 64, 384, 390}) {
+            byte[] codes = new byte[length + 3];
+            random.nextBytes(codes);
+            float[] query = randomVector(random, length);
+            assertEquals(scalar.dot(codes, 3, query, length), VectorMath.dot(codes, 3, query, length), 1e-2);
+        }
+    }
+
+    @Test
+    void testNormalize() {
+        float[] unit = VectorMath.normalize(new float[] {3, 4});
+        assertEquals(0.6f, unit[0], 1e-6);
+        assertEquals(0.8f, unit[1], 1e-6);
+        assertArrayEquals(new float[2], VectorMath.normalize(new float[2]));
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] v = new float[length];
+        for (int i = 0; i < length; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+}
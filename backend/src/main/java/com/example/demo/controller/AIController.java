@@ -11,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 /**
  * AI Controller - handles all AI-related requests from the frontend
  * Acts as a proxy/gateway to the AI Model service
@@ -29,7 +31,10 @@ public class AIController {
      * 
      * Request body:
      * {
-     *   "question": "What is the capital of France?"
+     *   "question": "What is the capital of France?",
+     *   "docIds": ["notes.pdf"],          (optional)
+     *   "uploadedFrom": 1700000000000,    (optional, epoch ms)
+     *   "uploadedTo": 1800000000000       (optional, epoch ms)
      * }
      * 
      * Response:
@@ -49,7 +54,7 @@ public class AIController {
         System.out.println("📝 Question from user " + userId + ": " + request.getQuestion());
         
         // Forward to AI service
-        QueryResponse response = aiService.askQuestion(request.getQuestion(), userId);
+        QueryResponse response = aiService.askQuestion(request, userId);
         
         if (response.isSuccess()) {
             System.out.println("✅ Answer generated successfully");
@@ -96,6 +101,67 @@ public class AIController {
         }
     }
 
+    /**
+     * POST /api/ai/document/batch-upload
+     * Upload several documents at once, processed as a single job
+     * 
+     * Form data:
+     * - files: PDF, TXT or MD files, or .zip archives of them (repeat the field per file)
+     * 
+     * Response:
+     * {
+     *   "success": true,
+     *   "message": "Documents queued for processing",
+     *   "documentId": "batch of 12 files",
+     *   "jobId": "..."
+     * }
+     */
+    @PostMapping("/document/batch-upload")
+    public ResponseEntity<DocumentUploadResponse> uploadDocuments(
+            @RequestParam("files") List<MultipartFile> files,
+            HttpServletRequest httpRequest) {
+
+        // Get authenticated user ID
+        String userId = (String) httpRequest.getAttribute("uid");
+
+        System.out.println("📦 Batch upload of " + files.size() + " files from user " + userId);
+
+        // Forward to AI service
+        DocumentUploadResponse response = aiService.uploadDocuments(files, userId);
+
+        if (response.isSuccess()) {
+            System.out.println("✅ Batch queued as job " + response.getJobId());
+            return ResponseEntity.ok(response);
+        } else {
+            System.out.println("❌ Failed to upload batch: " + response.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * GET /api/ai/jobs/{jobId}
+     * Get the progress of an upload returned by /document/upload
+     * 
+     * Response (404 if the job is unknown, 502 if the AI service can't be reached):
+     * {
+     *   "jobId": "...",
+     *   "status": "embedding",
+     *   "progress": 0.4,
+     *   "chunks": 42
+     * }
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<String> getJobStatus(
+            @PathVariable String jobId,
+            HttpServletRequest httpRequest) {
+
+        // Get authenticated user ID
+        String userId = (String) httpRequest.getAttribute("uid");
+
+        // Forward to AI service
+        return aiService.getJobStatus(jobId, userId);
+    }
+
     /**
      * GET /api/ai/documents
      * Get list of all documents uploaded by the authenticated user
@@ -4,6 +4,7 @@ public class DocumentUploadResponse {
     private boolean success;
     private String message;
     private String documentId;
+    private String jobId;
 
     public DocumentUploadResponse() {}
 
@@ -41,4 +42,12 @@ public class DocumentUploadResponse {
     public void setDocumentId(String documentId) {
         this.documentId = documentId;
     }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
 }
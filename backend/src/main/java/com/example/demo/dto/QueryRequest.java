@@ -1,8 +1,14 @@
 package com.example.demo.dto;
 
+import java.util.List;
+
 public class QueryRequest {
     private String question;
     private String id;  // AI Model expects "id" field
+    // Optional: restrict the answer to these documents / this upload window (epoch ms)
+    private List<String> docIds;
+    private Long uploadedFrom;
+    private Long uploadedTo;
 
     public QueryRequest() {}
 
@@ -26,4 +32,28 @@ public class QueryRequest {
     public void setId(String id) {
         this.id = id;
     }
+
+    public List<String> getDocIds() {
+        return docIds;
+    }
+
+    public void setDocIds(List<String> docIds) {
+        this.docIds = docIds;
+    }
+
+    public Long getUploadedFrom() {
+        return uploadedFrom;
+    }
+
+    public void setUploadedFrom(Long uploadedFrom) {
+        this.uploadedFrom = uploadedFrom;
+    }
+
+    public Long getUploadedTo() {
+        return uploadedTo;
+    }
+
+    public void setUploadedTo(Long uploadedTo) {
+        this.uploadedTo = uploadedTo;
+    }
 }
@@ -59,6 +59,30 @@ public class ResponseFactory {
         return new DocumentUploadResponse(true, "Document uploaded successfully");
     }
 
+    /**
+     * Create a response for an upload the AI Model accepted and is still processing
+     * @param documentId The ID of the uploaded document
+     * @param jobId The ingestion job to poll for progress
+     * @return DocumentUploadResponse with success status and job ID
+     */
+    public static DocumentUploadResponse createQueuedUploadResponse(String documentId, String jobId) {
+        DocumentUploadResponse response = new DocumentUploadResponse(true, "Document queued for processing", documentId);
+        response.setJobId(jobId);
+        return response;
+    }
+
+    /**
+     * Create a response for a batch of documents the AI Model accepted as a single job
+     * @param batchName The name the AI Model gave the batch
+     * @param jobId The ingestion job to poll for progress of the whole batch
+     * @return DocumentUploadResponse with success status and job ID
+     */
+    public static DocumentUploadResponse createQueuedBatchUploadResponse(String batchName, String jobId) {
+        DocumentUploadResponse response = new DocumentUploadResponse(true, "Documents queued for processing", batchName);
+        response.setJobId(jobId);
+        return response;
+    }
+
     /**
      * Create a failed document upload response with error details
      * @param errorMessage The error message explaining the failure
@@ -9,9 +9,14 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class AIService {
 
@@ -32,9 +37,22 @@ public class AIService {
      * @return QueryResponse with the AI's answer
      */
     public QueryResponse askQuestion(String question, String userId) {
+        return askQuestion(new QueryRequest(question, userId), userId);
+    }
+
+    /**
+     * Send a query, optionally scoped to some documents, to the AI Model and get an answer
+     * @param query The user's question and optional document filters
+     * @param userId The authenticated user's ID
+     * @return QueryResponse with the AI's answer
+     */
+    public QueryResponse askQuestion(QueryRequest query, String userId) {
         try {
-            // Prepare request - AI Model expects {id, question}
-            QueryRequest request = new QueryRequest(question, userId);
+            // Prepare request - AI Model expects {id, question} plus optional filters
+            QueryRequest request = new QueryRequest(query.getQuestion(), userId);
+            request.setDocIds(query.getDocIds());
+            request.setUploadedFrom(query.getUploadedFrom());
+            request.setUploadedTo(query.getUploadedTo());
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -119,8 +137,12 @@ public class AIService {
                 String.class
             );
 
-            // AI Model returns {filename, fileSize}
+            // AI Model returns {filename, fileSize, jobId, status} and keeps processing in the background
             String responseBody = response.getBody();
+            String jobId = extractStringField(responseBody, "jobId");
+            if (jobId != null) {
+                return ResponseFactory.createQueuedUploadResponse(filename, jobId);
+            }
             if (responseBody != null && responseBody.contains("filename")) {
                 return ResponseFactory.createSuccessUploadResponse(userId);
             }
@@ -133,6 +155,87 @@ public class AIService {
         }
     }
 
+    /**
+     * Upload several documents, or .zip archives of them, to the AI Model as one batch
+     * @param files The document files and archives
+     * @param userId The authenticated user's ID
+     * @return DocumentUploadResponse with the job ID of the whole batch
+     */
+    public DocumentUploadResponse uploadDocuments(List<MultipartFile> files, String userId) {
+        try {
+            // Validate file types - AI Model accepts .txt, .md, .pdf and .zip archives of them
+            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+            for (MultipartFile file : files) {
+                String filename = file.getOriginalFilename();
+                if (filename != null && (filename.endsWith(".pdf") || filename.endsWith(".txt")
+                        || filename.endsWith(".md") || filename.endsWith(".zip"))) {
+                    body.add("files", file.getResource());
+                }
+            }
+            if (body.isEmpty()) {
+                return ResponseFactory.createUnsupportedFileTypeResponse();
+            }
+            body.add("id", userId);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+
+            // Call AI Model service - endpoint is /api/batchUpload, one job for all files
+            ResponseEntity<String> response = restTemplate.exchange(
+                aiServiceUrl + "/api/batchUpload",
+                HttpMethod.POST,
+                requestEntity,
+                String.class
+            );
+
+            // AI Model returns {filename, jobId, files, unsupported, status}
+            String responseBody = response.getBody();
+            String jobId = extractStringField(responseBody, "jobId");
+            if (jobId == null) {
+                return ResponseFactory.createErrorUploadResponse("AI service did not accept the batch");
+            }
+            return ResponseFactory.createQueuedBatchUploadResponse(extractStringField(responseBody, "filename"), jobId);
+
+        } catch (HttpClientErrorException e) {
+            // AI Model explains rejected batches (unsupported, too many files, too large) in the body
+            return ResponseFactory.createErrorUploadResponse(e.getResponseBodyAsString());
+        } catch (Exception e) {
+            System.err.println("Error uploading documents to AI service: " + e.getMessage());
+            return ResponseFactory.createUploadExceptionResponse(e);
+        }
+    }
+
+    /**
+     * Get the progress of an upload from the AI Model
+     * @param jobId The job ID returned by the upload
+     * @param userId The authenticated user's ID
+     * @return The job status JSON; 404 if the job is unknown or belongs to another user,
+     *         502 if the AI Model could not be asked
+     */
+    public ResponseEntity<String> getJobStatus(String jobId, String userId) {
+        try {
+            // AI Model expects GET /api/jobs/{jobId}?id=... and answers 404 for other users' jobs
+            ResponseEntity<String> response = restTemplate.getForEntity(
+                aiServiceUrl + "/api/jobs/{jobId}?id={id}",
+                String.class,
+                jobId,
+                userId
+            );
+            return ResponseEntity.ok(response.getBody());
+
+        } catch (HttpClientErrorException.NotFound e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("{\"success\": false, \"message\": \"Job not found\"}");
+        } catch (Exception e) {
+            // The exception text stays in the log; it isn't valid inside a JSON string as is
+            System.err.println("Error getting job status: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body("{\"success\": false, \"message\": \"Could not get job status from AI service\"}");
+        }
+    }
+
     /**
      * Get list of user's documents from AI Model
      * @param userId The authenticated user's ID
@@ -175,28 +278,49 @@ public class AIService {
      */
     public boolean deleteDocument(String documentId, String userId) {
         try {
-            // AI Model expects DELETE /api/deleteDB with body {id, question}
+            // AI Model expects DELETE /api/deleteDocument with body {id, docId}
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            // Create request body with id
-            String requestBody = "{\"id\": \"" + userId + "\"}";
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-            
+
+            Map<String, String> requestBody = new HashMap<>();
+            requestBody.put("id", userId);
+            requestBody.put("docId", documentId);
+            HttpEntity<Map<String, String>> entity = new HttpEntity<>(requestBody, headers);
+
             ResponseEntity<String> response = restTemplate.exchange(
-                aiServiceUrl + "/api/deleteDB",
+                aiServiceUrl + "/api/deleteDocument",
                 HttpMethod.DELETE,
                 entity,
                 String.class
             );
-            
+
             // Check if response contains "deleted" status
             String responseBody = response.getBody();
-            return responseBody != null && responseBody.contains("deleted");
-            
+            return responseBody != null && responseBody.contains("\"deleted\"");
+
         } catch (Exception e) {
             System.err.println("Error deleting document: " + e.getMessage());
             return false;
         }
     }
+
+    // Value of a top-level string field in a flat JSON object, or null if it is absent
+    private static String extractStringField(String json, String field) {
+        if (json == null) {
+            return null;
+        }
+        int keyStart = json.indexOf("\"" + field + "\"");
+        if (keyStart == -1) {
+            return null;
+        }
+        int valueStart = json.indexOf(":", keyStart) + 1;
+        while (valueStart < json.length() && Character.isWhitespace(json.charAt(valueStart))) {
+            valueStart++;
+        }
+        if (valueStart >= json.length() || json.charAt(valueStart) != '"') {
+            return null;
+        }
+        int valueEnd = json.indexOf("\"", valueStart + 1);
+        return valueEnd == -1 ? null : json.substring(valueStart + 1, valueEnd);
+    }
 }
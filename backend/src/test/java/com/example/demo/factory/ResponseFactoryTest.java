@@ -60,6 +60,16 @@ class ResponseFactoryTest {
         assertNull(response.getDocumentId());
     }
 
+    @Test
+    void testCreateQueuedBatchUploadResponse() {
+        DocumentUploadResponse response = ResponseFactory.createQueuedBatchUploadResponse("notes.zip", "job-1");
+
+        assertTrue(response.isSuccess());
+        assertEquals("Documents queued for processing", response.getMessage());
+        assertEquals("notes.zip", response.getDocumentId());
+        assertEquals("job-1", response.getJobId());
+    }
+
     @Test
     void testCreateUnsupportedFileTypeResponse() {
         DocumentUploadResponse response = ResponseFactory.createUnsupportedFileTypeResponse();